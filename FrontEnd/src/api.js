@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { installAuthInterceptors } from './authTokens';
 
 // Configuration de l'URL de base de l'API
 const API_BASE_URL = import.meta.env.VITE_API_URL || 'https://electro-433v.onrender.com';
@@ -15,37 +16,8 @@ const api = axios.create({
   },
 });
 
-// Intercepteur pour ajouter le token d'authentification à chaque requête
-api.interceptors.request.use(
-  (config) => {
-    const token = localStorage.getItem('token');
-    if (token) {
-      config.headers.Authorization = `Bearer ${token}`;
-    }
-    return config;
-  },
-  (error) => {
-    return Promise.reject(error);
-  }
-);
-
-// Intercepteur pour gérer les erreurs de réponse
-api.interceptors.response.use(
-  (response) => {
-    return response;
-  },
-  (error) => {
-    // Gérer les erreurs 401 (non autorisé) - déconnexion automatique
-    if (error.response?.status === 401) {
-      localStorage.removeItem('token');
-      localStorage.removeItem('userId');
-      localStorage.removeItem('username');
-      if (window.location.pathname !== '/login') {
-        window.location.href = '/login';
-      }
-    }
-    return Promise.reject(error);
-  }
-);
+// Token sur chaque requête ; sur une 401, renouvellement avec le refresh token puis nouvelle tentative
+// (déconnexion si le renouvellement échoue)
+installAuthInterceptors(api);
 
 export { api, API_BASE_URL };
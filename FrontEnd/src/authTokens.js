@@ -0,0 +1,196 @@
+import axios from 'axios';
+
+// Renouvellement du token d'accès avec le refresh token (POST /api/auth/refresh, rotation à chaque appel)
+
+export const TOKEN_REFRESHED_EVENT = 'auth:token-refreshed';
+export const SESSION_EXPIRED_EVENT = 'auth:session-expired';
+
+// Instance sans intercepteurs : l'appel de renouvellement ne doit jamais déclencher un autre renouvellement
+const refreshClient = axios.create({ timeout: 10000 });
+
+let refreshPromise = null;
+
+const decodePayload = (token) => {
+  try {
+    return JSON.parse(atob(token.split('.')[1].replace(/-/g, '+').replace(/_/g, '/')));
+  } catch (error) {
+    return null;
+  }
+};
+
+// Token expiré ou expirant dans moins de 30 secondes
+export const isTokenExpiring = (token, marginMs = 30000) => {
+  const payload = token ? decodePayload(token) : null;
+  if (!payload?.exp) {
+    return false;
+  }
+  return payload.exp * 1000 - marginMs <= Date.now();
+};
+
+export const storeSession = ({ token, refreshToken }) => {
+  if (token) {
+    localStorage.setItem('token', token);
+  }
+  if (refreshToken) {
+    localStorage.setItem('refreshToken', refreshToken);
+  }
+};
+
+export const clearSession = () => {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('userId');
+  localStorage.removeItem('username');
+};
+
+const expireSession = () => {
+  clearSession();
+  window.dispatchEvent(new CustomEvent(SESSION_EXPIRED_EVENT));
+  if (window.location.pathname !== '/login') {
+    window.location.href = '/login';
+  }
+};
+
+const doRefresh = async (staleToken) => {
+  // Un autre onglet a peut-être déjà renouvelé le token : réutiliser le refresh token consommé
+  // révoquerait toute la session
+  const current = localStorage.getItem('token');
+  if (current && current !== staleToken && !isTokenExpiring(current)) {
+    return current;
+  }
+  const refreshToken = localStorage.getItem('refreshToken');
+  if (!refreshToken) {
+    throw new Error('Aucun refresh token');
+  }
+  const { data } = await refreshClient.post('/api/auth/refresh', { refreshToken });
+  storeSession(data);
+  window.dispatchEvent(new CustomEvent(TOKEN_REFRESHED_EVENT, { detail: data.token }));
+  return data.token;
+};
+
+/**
+ * Renouvelle le token d'accès (un seul appel à la fois, y compris entre onglets quand le navigateur
+ * supporte navigator.locks). En cas d'échec la session est terminée et l'utilisateur renvoyé au login.
+ */
+export const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const staleToken = localStorage.getItem('token');
+    const run = () => doRefresh(staleToken);
+    const pending = navigator.locks ? navigator.locks.request('auth-refresh', run) : run();
+    refreshPromise = pending
+      .catch((error) => {
+        expireSession();
+        throw error;
+      })
+      .finally(() => {
+        refreshPromise = null;
+      });
+  }
+  return refreshPromise;
+};
+
+/**
+ * Intercepteurs d'une instance axios : token courant sur chaque requête (renouvelé d'avance s'il expire),
+ * et sur une 401 un renouvellement puis une seule nouvelle tentative.
+ */
+export const installAuthInterceptors = (instance) => {
+  const requestInterceptor = instance.interceptors.request.use(async (config) => {
+    if (config.url?.includes('/api/auth/')) {
+      return config;
+    }
+    let token = localStorage.getItem('token');
+    if (token && isTokenExpiring(token) && localStorage.getItem('refreshToken')) {
+      token = await refreshAccessToken().catch(() => null);
+    }
+    if (token) {
+      config.headers.Authorization = `Bearer ${token}`;
+    }
+    return config;
+  });
+
+  const responseInterceptor = instance.interceptors.response.use(
+    (response) => response,
+    async (error) => {
+      const config = error.config;
+      if (error.response?.status !== 401 || !config || config._retried || config.url?.includes('/api/auth/')) {
+        return Promise.reject(error);
+      }
+      if (!localStorage.getItem('refreshToken')) {
+        // Ancienne session sans refresh token : déconnexion comme avant
+        if (localStorage.getItem('token')) {
+          expireSession();
+        }
+        return Promise.reject(error);
+      }
+      config._retried = true;
+      const token = await refreshAccessToken();
+      config.headers.Authorization = `Bearer ${token}`;
+      return instance(config);
+    }
+  );
+
+  return () => {
+    instance.interceptors.request.eject(requestInterceptor);
+    instance.interceptors.response.eject(responseInterceptor);
+  };
+};
+
+/**
+ * Flux SSE des notifications. EventSource ne peut pas envoyer d'en-tête : chaque (re)connexion
+ * demande d'abord un ticket à usage unique (POST /api/notifications/stream-ticket, avec le token
+ * renouvelé au besoin par les intercepteurs) et ouvre le flux avec ce ticket, jamais avec le token.
+ * Après une reconnexion, "resync" est appelé pour recharger ce qui a pu être manqué.
+ * Retourne la fonction de fermeture.
+ */
+export const openNotificationStream = (handlers) => {
+  let source = null;
+  let closed = false;
+  let retryTimer = null;
+  let attempts = 0;
+
+  const retry = () => {
+    attempts += 1;
+    retryTimer = setTimeout(connect, Math.min(30000, 1000 * 2 ** Math.min(attempts, 5)));
+  };
+
+  const connect = async () => {
+    if (closed || !localStorage.getItem('token')) {
+      return;
+    }
+    let ticket;
+    try {
+      const response = await axios.post('/api/notifications/stream-ticket');
+      ticket = response.data.ticket;
+    } catch (err) {
+      // Session terminée (401 après échec du refresh) : pas de nouvel essai
+      if (!closed && err.response?.status !== 401) {
+        retry();
+      }
+      return;
+    }
+    if (closed) {
+      return;
+    }
+
+    source = new EventSource(`/api/notifications/stream?ticket=${encodeURIComponent(ticket)}`);
+    Object.entries(handlers).forEach(([event, handler]) => source.addEventListener(event, handler));
+    source.onopen = () => {
+      if (attempts > 0) {
+        handlers.resync?.();
+      }
+      attempts = 0;
+    };
+    source.onerror = () => {
+      source.close();
+      retry();
+    };
+  };
+
+  connect();
+
+  return () => {
+    closed = true;
+    clearTimeout(retryTimer);
+    source?.close();
+  };
+};
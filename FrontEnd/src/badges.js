@@ -0,0 +1,66 @@
+import axios from 'axios';
+
+// Compteurs des badges (notifications non lues, messages non lus, articles du panier) en un seul appel :
+// GET /api/me/badges. Un seul poll partagé par tous les composants abonnés ; le serveur répond 304
+// (If-None-Match) tant que rien n'a changé.
+
+const POLL_INTERVAL_MS = 5000;
+
+const listeners = new Set();
+let latest = null;
+let etag = null;
+let timer = null;
+let inFlight = null;
+
+const poll = () => {
+  if (!inFlight) {
+    const headers = etag ? { 'If-None-Match': etag } : {};
+    inFlight = axios
+      .get('/api/me/badges', { headers, validateStatus: (status) => status === 200 || status === 304 })
+      .then((response) => {
+        if (response.status !== 200 || !response.data) {
+          return;
+        }
+        etag = response.headers.etag || null;
+        if (response.data.version !== latest?.version) {
+          latest = response.data;
+          listeners.forEach((listener) => listener(latest));
+        }
+      })
+      .catch(() => {
+        // Erreur silencieuse : nouvel essai au prochain poll
+      })
+      .finally(() => {
+        inFlight = null;
+      });
+  }
+  return inFlight;
+};
+
+/**
+ * Abonne un composant aux compteurs ; il reçoit les derniers connus tout de suite s'il y en a,
+ * puis chaque changement. Le poll tourne tant qu'il reste un abonné. Retourne le désabonnement.
+ */
+export const subscribeBadges = (listener) => {
+  listeners.add(listener);
+  if (latest) {
+    listener(latest);
+  }
+  if (!timer) {
+    poll();
+    timer = setInterval(poll, POLL_INTERVAL_MS);
+  }
+  return () => {
+    listeners.delete(listener);
+    if (listeners.size === 0) {
+      clearInterval(timer);
+      timer = null;
+      // Le prochain abonné peut être un autre utilisateur : repartir de zéro
+      latest = null;
+      etag = null;
+    }
+  };
+};
+
+// Relit les compteurs sans attendre le prochain poll (ex. après un ajout au panier)
+export const refreshBadges = () => (inFlight ? inFlight.then(poll) : poll());
@@ -1,5 +1,7 @@
 import { useEffect, useState, useRef } from 'react';
 import axios from 'axios';
+import { openNotificationStream } from '../../authTokens';
+import { subscribeBadges, refreshBadges } from '../../badges';
 import { useAuth } from '../../contexts/AuthContext';
 import { useNavigate } from 'react-router-dom';
 
@@ -31,20 +33,15 @@ export const useAdminNotifications = () => {
       const token = localStorage.getItem('token');
       const headers = token ? { Authorization: `Bearer ${token}` } : {};
 
-      // Récupérer les notifications non lues
+      // Récupérer les notifications non lues (le nombre vient du poll des badges)
       const unreadResponse = await axios.get(`/api/notifications/user/${user.userId}/unread`, { headers });
       const unreadNotifications = unreadResponse.data || [];
 
-      // Récupérer le nombre de notifications non lues
-      const countResponse = await axios.get(`/api/notifications/user/${user.userId}/count`, { headers });
-      const count = countResponse.data || 0;
-
       // Détecter les nouvelles notifications
       const currentNotificationIds = new Set(unreadNotifications.map(n => n.id));
       const newNotifications = unreadNotifications.filter(n => !lastNotificationIds.current.has(n.id));
       
       setNotifications(unreadNotifications);
-      setUnreadCount(count);
       lastNotificationIds.current = currentNotificationIds;
 
       // Afficher une notification du navigateur pour les nouvelles notifications
@@ -84,10 +81,32 @@ export const useAdminNotifications = () => {
     // Charger immédiatement
     fetchNotifications();
 
-    // Recharger toutes les 5 secondes
-    const interval = setInterval(fetchNotifications, 5000);
-
-    return () => clearInterval(interval);
+    // Nombre de non lues lu dans le poll partagé des badges (GET /api/me/badges) :
+    // la liste n'est rechargée que quand ce nombre change
+    let lastCount = null;
+    const unsubscribeBadges = subscribeBadges((badges) => {
+      const count = badges.notifications || 0;
+      setUnreadCount(count);
+      if (lastCount !== null && count !== lastCount) {
+        fetchNotifications();
+      }
+      lastCount = count;
+    });
+
+    // Flux SSE : nouvelle notification affichée sans attendre le prochain poll
+    // (URL reconstruite avec le token courant à chaque reconnexion)
+    const closeStream = 'EventSource' in window && localStorage.getItem('token')
+      ? openNotificationStream({
+          notification: fetchNotifications,
+          'unread-count': refreshBadges,
+          resync: fetchNotifications,
+        })
+      : null;
+
+    return () => {
+      unsubscribeBadges();
+      closeStream?.();
+    };
   }, [user]);
 
   const markAsRead = async (notificationId) => {
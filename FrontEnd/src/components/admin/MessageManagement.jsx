@@ -4,6 +4,7 @@ import { useNavigate } from 'react-router-dom';
 import { Card } from '../Card';
 import { useAuth } from '../../contexts/AuthContext';
 import EmojiPicker from '../EmojiPicker';
+import { useOlderMessages } from '../useOlderMessages';
 
 const MessageManagement = () => {
   const { user } = useAuth();
@@ -22,6 +23,9 @@ const MessageManagement = () => {
   const [gettingLocation, setGettingLocation] = useState(false);
   const fileInputRef = useRef(null);
   const messagesEndRef = useRef(null);
+  // Historique ancien (archive comprise) chargé à la demande, avant les messages récents
+  const { conversationMessages, hasOlder, loadingOlder, loadOlder, forgetMessages } =
+    useOlderMessages(adminId, selectedUserId, messages);
 
   useEffect(() => {
     fetchUsersWithConversations();
@@ -168,6 +172,7 @@ const MessageManagement = () => {
       const headers = token ? { Authorization: `Bearer ${token}` } : {};
       
       await axios.delete(`/api/messages/${messageId}`, { headers });
+      forgetMessages([messageId]);
       await fetchConversation(selectedUserId);
     } catch (err) {
       console.error('Error deleting message:', err);
@@ -190,6 +195,7 @@ const MessageManagement = () => {
         },
         headers
       });
+      forgetMessages(messageIds);
       await fetchConversation(selectedUserId);
     } catch (err) {
       console.error('Error deleting messages:', err);
@@ -409,17 +415,29 @@ const MessageManagement = () => {
 
               {/* Messages */}
               <div className="flex-1 overflow-y-auto space-y-4 mb-4 pr-2">
-                {messages.length === 0 ? (
+                {hasOlder && (
+                  <div className="flex justify-center">
+                    <button
+                      type="button"
+                      onClick={loadOlder}
+                      disabled={loadingOlder}
+                      className="text-xs text-blue-600 hover:text-blue-800 underline disabled:opacity-50"
+                    >
+                      {loadingOlder ? 'Chargement...' : 'Charger les messages plus anciens'}
+                    </button>
+                  </div>
+                )}
+                {conversationMessages.length === 0 ? (
                   <p className="text-center text-gray-500 py-8">
                     Aucun message. Commencez la conversation !
                   </p>
                 ) : (
                   <>
-                    {messages.filter(m => m.senderId === adminId || m.receiverId === adminId).length > 0 && (
+                    {conversationMessages.filter(m => m.senderId === adminId || m.receiverId === adminId).length > 0 && (
                       <div className="mb-2 flex justify-end">
                         <button
                           onClick={() => {
-                            const adminMessageIds = messages
+                            const adminMessageIds = conversationMessages
                               .filter(m => m.senderId === adminId || m.receiverId === adminId)
                               .map(m => m.id);
                             if (adminMessageIds.length > 0) {
@@ -432,7 +450,7 @@ const MessageManagement = () => {
                         </button>
                       </div>
                     )}
-                    {messages.map((message) => {
+                    {conversationMessages.map((message) => {
                       const isAdmin = message.senderId === adminId;
                       const senderId = isAdmin ? adminId : selectedUserId;
                       const canDelete = message.senderId === adminId || message.receiverId === adminId;
@@ -1,35 +1,19 @@
 import { useState, useEffect } from 'react';
-import axios from 'axios';
 import { useAuth } from '../contexts/AuthContext';
+import { subscribeBadges, refreshBadges } from '../badges';
 
 export const useCart = () => {
   const { user } = useAuth();
   const [cartItemCount, setCartItemCount] = useState(0);
 
-  const fetchCartItemCount = async () => {
+  useEffect(() => {
     if (!user?.userId) {
       setCartItemCount(0);
-      return;
-    }
-
-    try {
-      const token = localStorage.getItem('token');
-      const headers = token ? { Authorization: `Bearer ${token}` } : {};
-      const response = await axios.get(`/api/cart/user/${user.userId}/count`, { headers });
-      setCartItemCount(response.data || 0);
-    } catch (err) {
-      console.error('Error fetching cart count:', err);
-      setCartItemCount(0);
+      return undefined;
     }
-  };
-
-  useEffect(() => {
-    fetchCartItemCount();
-    // Rafraîchir toutes les 5 secondes
-    const interval = setInterval(fetchCartItemCount, 5000);
-    return () => clearInterval(interval);
+    // Compteur lu dans le poll partagé des badges (GET /api/me/badges, toutes les 5 secondes)
+    return subscribeBadges((badges) => setCartItemCount(badges.cartItems || 0));
   }, [user?.userId]);
 
-  return { cartItemCount, refreshCart: fetchCartItemCount };
+  return { cartItemCount, refreshCart: refreshBadges };
 };
-
@@ -0,0 +1,56 @@
+import { useState, useEffect } from 'react';
+import axios from 'axios';
+
+// Taille d'une page "messages plus anciens" (le serveur en accepte au plus 200)
+const PAGE_SIZE = 50;
+
+/**
+ * Historique d'une conversation chargé à la demande, avant les messages récents déjà affichés :
+ * GET /api/messages/conversation/{a}/{b}/older (table message puis archive froide).
+ * Retourne la liste complète à afficher (anciens + récents) et de quoi charger la page précédente.
+ */
+export const useOlderMessages = (userId1, userId2, liveMessages) => {
+  const [olderMessages, setOlderMessages] = useState([]);
+  const [hasOlder, setHasOlder] = useState(true);
+  const [loadingOlder, setLoadingOlder] = useState(false);
+
+  // Autre conversation : repartir de zéro
+  useEffect(() => {
+    setOlderMessages([]);
+    setHasOlder(true);
+  }, [userId1, userId2]);
+
+  const loadOlder = async () => {
+    if (!userId1 || !userId2 || loadingOlder) {
+      return;
+    }
+    const oldest = olderMessages[0] || liveMessages[0];
+    try {
+      setLoadingOlder(true);
+      const params = { limit: PAGE_SIZE };
+      if (oldest?.createdAt) {
+        params.before = oldest.createdAt;
+      }
+      const response = await axios.get(`/api/messages/conversation/${userId1}/${userId2}/older`, { params });
+      const page = response.data || [];
+      const known = new Set([...olderMessages, ...liveMessages].map((m) => m.id));
+      setOlderMessages((prev) => [...page.filter((m) => !known.has(m.id)), ...prev]);
+      setHasOlder(page.length === PAGE_SIZE);
+    } catch (err) {
+      // Erreur silencieuse : le bouton reste disponible pour réessayer
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
+
+  // Messages supprimés : les retirer aussi de l'historique déjà chargé
+  const forgetMessages = (messageIds) => {
+    const removed = new Set(messageIds);
+    setOlderMessages((prev) => prev.filter((m) => !removed.has(m.id)));
+  };
+
+  const liveIds = new Set(liveMessages.map((m) => m.id));
+  const conversationMessages = [...olderMessages.filter((m) => !liveIds.has(m.id)), ...liveMessages];
+
+  return { conversationMessages, hasOlder, loadingOlder, loadOlder, forgetMessages };
+};
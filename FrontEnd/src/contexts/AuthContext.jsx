@@ -1,8 +1,18 @@
 import React, { createContext, useState, useContext, useEffect } from 'react';
 import axios from 'axios';
+import {
+  installAuthInterceptors,
+  storeSession,
+  clearSession,
+  TOKEN_REFRESHED_EVENT,
+  SESSION_EXPIRED_EVENT,
+} from '../authTokens';
 
 const AuthContext = createContext(null);
 
+// Intervalle des signes de vie, bien en dessous de presence.timeout-ms côté serveur
+const PRESENCE_HEARTBEAT_MS = 30000;
+
 export const useAuth = () => {
   const context = useContext(AuthContext);
   if (!context) {
@@ -17,19 +27,16 @@ export const AuthProvider = ({ children }) => {
   const [token, setToken] = useState(localStorage.getItem('token'));
 
   useEffect(() => {
-    // Set up axios interceptor for token
-    const interceptor = axios.interceptors.request.use(
-      (config) => {
-        const storedToken = localStorage.getItem('token');
-        if (storedToken) {
-          config.headers.Authorization = `Bearer ${storedToken}`;
-        }
-        return config;
-      },
-      (error) => {
-        return Promise.reject(error);
-      }
-    );
+    // Token sur chaque requête, renouvelé avec le refresh token avant expiration ou après une 401
+    const ejectInterceptors = installAuthInterceptors(axios);
+
+    const onTokenRefreshed = (event) => loadUserFromToken(event.detail);
+    const onSessionExpired = () => {
+      setToken(null);
+      setUser(null);
+    };
+    window.addEventListener(TOKEN_REFRESHED_EVENT, onTokenRefreshed);
+    window.addEventListener(SESSION_EXPIRED_EVENT, onSessionExpired);
 
     // Load user from token on mount
     if (token) {
@@ -39,10 +46,23 @@ export const AuthProvider = ({ children }) => {
     }
 
     return () => {
-      axios.interceptors.request.eject(interceptor);
+      ejectInterceptors();
+      window.removeEventListener(TOKEN_REFRESHED_EVENT, onTokenRefreshed);
+      window.removeEventListener(SESSION_EXPIRED_EVENT, onSessionExpired);
     };
   }, []);
 
+  useEffect(() => {
+    if (!user) {
+      return undefined;
+    }
+    // Signe de vie pour la présence en ligne (le serveur oublie l'utilisateur après 90 s sans signe de vie)
+    const sendHeartbeat = () => axios.post('/api/presence/heartbeat').catch(() => {});
+    sendHeartbeat();
+    const heartbeatTimer = setInterval(sendHeartbeat, PRESENCE_HEARTBEAT_MS);
+    return () => clearInterval(heartbeatTimer);
+  }, [user]);
+
   const loadUserFromToken = async (tokenToUse) => {
     try {
       // Decode token to get user info (simple approach)
@@ -121,7 +141,7 @@ export const AuthProvider = ({ children }) => {
         };
       }
       
-      localStorage.setItem('token', newToken);
+      storeSession({ token: newToken, refreshToken: responseData.refreshToken });
       if (userId) {
         localStorage.setItem('userId', userId.toString());
       }
@@ -186,18 +206,19 @@ export const AuthProvider = ({ children }) => {
 
   const logout = async () => {
     // Appeler l'endpoint de déconnexion pour mettre à jour le statut
+    // Le token d'accès et le refresh token sont révoqués côté serveur
     const userId = localStorage.getItem('userId');
     if (userId) {
       try {
-        await axios.post(`/api/auth/logout/${userId}`);
+        await axios.post(`/api/auth/logout/${userId}`, {
+          refreshToken: localStorage.getItem('refreshToken'),
+        });
       } catch (err) {
         // Erreur silencieuse lors de la déconnexion
       }
     }
     
-    localStorage.removeItem('token');
-    localStorage.removeItem('userId');
-    localStorage.removeItem('username');
+    clearSession();
     setToken(null);
     setUser(null);
   };
@@ -5,6 +5,7 @@ import { useAuth } from '../contexts/AuthContext';
 import { useNavigate } from 'react-router-dom';
 import { BackButton } from '../components/BackButton';
 import EmojiPicker from '../components/EmojiPicker';
+import { useOlderMessages } from '../components/useOlderMessages';
 
 const Messages = () => {
   const { user, isAuthenticated } = useAuth();
@@ -21,6 +22,9 @@ const Messages = () => {
   const [gettingLocation, setGettingLocation] = useState(false);
   const fileInputRef = useRef(null);
   const messagesEndRef = useRef(null);
+  // Historique ancien (archive comprise) chargé à la demande, avant les messages récents
+  const { conversationMessages, hasOlder, loadingOlder, loadOlder, forgetMessages } =
+    useOlderMessages(user?.userId, adminId, messages);
 
   useEffect(() => {
     if (!isAuthenticated) {
@@ -181,6 +185,7 @@ const Messages = () => {
       const headers = token ? { Authorization: `Bearer ${token}` } : {};
       
       await axios.delete(`/api/messages/${messageId}`, { headers });
+      forgetMessages([messageId]);
       await fetchConversation();
     } catch (err) {
       alert('Erreur lors de la suppression du message');
@@ -202,6 +207,7 @@ const Messages = () => {
         },
         headers
       });
+      forgetMessages(messageIds);
       await fetchConversation();
     } catch (err) {
       alert('Erreur lors de la suppression des messages');
@@ -351,17 +357,29 @@ const Messages = () => {
             ref={messagesContainerRef}
             className="h-96 overflow-y-auto space-y-4 mb-6 pr-2 border-b border-gray-200 pb-4"
           >
-            {messages.length === 0 ? (
+            {hasOlder && (
+              <div className="flex justify-center">
+                <button
+                  type="button"
+                  onClick={loadOlder}
+                  disabled={loadingOlder}
+                  className="text-xs text-blue-600 hover:text-blue-800 underline disabled:opacity-50"
+                >
+                  {loadingOlder ? 'Chargement...' : 'Charger les messages plus anciens'}
+                </button>
+              </div>
+            )}
+            {conversationMessages.length === 0 ? (
               <p className="text-center text-gray-500 py-8">
                 Aucun message. Commencez la conversation !
               </p>
             ) : (
               <>
-                {user?.role === 'ADMIN' && messages.length > 0 && (
+                {user?.role === 'ADMIN' && conversationMessages.length > 0 && (
                   <div className="mb-2 flex justify-end">
                     <button
                       onClick={() => {
-                        const allMessageIds = messages.map(m => m.id);
+                        const allMessageIds = conversationMessages.map(m => m.id);
                         if (allMessageIds.length > 0) {
                           handleDeleteMultipleMessages(allMessageIds);
                         }
@@ -372,7 +390,7 @@ const Messages = () => {
                     </button>
                   </div>
                 )}
-                {messages.map((message) => {
+                {conversationMessages.map((message) => {
                 const isUser = message.senderId === user.userId;
                 const senderId = isUser ? user.userId : adminId;
                 const canDelete = user?.role === 'ADMIN'; // Seul l'admin peut supprimer
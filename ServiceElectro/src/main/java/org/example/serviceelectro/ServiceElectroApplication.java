@@ -1,7 +1,9 @@
 package org.example.serviceelectro;
 
+import org.example.serviceelectro.config.NotificationRetentionProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -10,6 +12,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableJpaAuditing
 @EnableScheduling
 @EnableAsync
+@EnableConfigurationProperties(NotificationRetentionProperties.class)
 public class ServiceElectroApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,54 @@
+package org.example.serviceelectro.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.serviceelectro.servicees.AuthRateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Limite par adresse IP les requêtes vers /api/auth/** (login, OAuth...) avant tout traitement :
+ * au-delà du débit autorisé, réponse 429 avec Retry-After, sans calcul BCrypt ni accès base.
+ * L'adresse est celle du client résolue depuis X-Forwarded-For (server.forward-headers-strategy),
+ * pas celle du proxy Azure devant l'application.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REFRESH_PATH = "/api/auth/refresh";
+
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod()) || !request.getServletPath().startsWith("/api/auth/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientIp = request.getRemoteAddr();
+        long retryAfter = REFRESH_PATH.equals(request.getServletPath())
+                ? authRateLimiter.acquireRefreshForIp(clientIp)
+                : authRateLimiter.acquireForIp(clientIp);
+        if (retryAfter > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", Long.toString(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\"," +
+                    "\"message\":\"Trop de requêtes, réessayez dans " + retryAfter + " seconde(s)\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
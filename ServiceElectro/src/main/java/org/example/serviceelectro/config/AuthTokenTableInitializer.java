@@ -0,0 +1,72 @@
+package org.example.serviceelectro.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tables des refresh tokens (empreintes SHA-256, jamais le token en clair), des access tokens révoqués
+ * et des dates avant lesquelles les access tokens d'un utilisateur sont refusés (changement de rôle).
+ */
+@Component
+public class AuthTokenTableInitializer implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) throws Exception {
+        createTable("refresh_token", "CREATE TABLE IF NOT EXISTS refresh_token (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "user_id BIGINT NOT NULL, " +
+                "token_hash CHAR(64) NOT NULL, " +
+                "family_id CHAR(36) NOT NULL, " +
+                "expires_at TIMESTAMP NOT NULL, " +
+                "revoked_at TIMESTAMP NULL DEFAULT NULL, " +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (user_id) REFERENCES utilisateur(id) ON DELETE CASCADE, " +
+                "UNIQUE KEY unique_token_hash (token_hash), " +
+                "INDEX idx_family_id (family_id), " +
+                "INDEX idx_expires_at (expires_at)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+
+        createTable("revoked_token", "CREATE TABLE IF NOT EXISTS revoked_token (" +
+                "jti CHAR(36) PRIMARY KEY, " +
+                "expires_at TIMESTAMP NOT NULL, " +
+                "revoked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "INDEX idx_expires_at (expires_at)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+
+        createTable("token_cutoff", "CREATE TABLE IF NOT EXISTS token_cutoff (" +
+                "email VARCHAR(255) PRIMARY KEY, " +
+                "not_before TIMESTAMP(3) NOT NULL, " +
+                "expires_at TIMESTAMP NOT NULL, " +
+                "INDEX idx_expires_at (expires_at)" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+    }
+
+    private void createTable(String tableName, String createTableSQL) {
+        try {
+            Integer tableCount = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?",
+                    Integer.class, tableName);
+
+            if (tableCount == null || tableCount == 0) {
+                System.out.println("📋 Table '" + tableName + "' n'existe pas. Création en cours...");
+                jdbcTemplate.execute(createTableSQL);
+                System.out.println("✅ Table '" + tableName + "' créée avec succès!");
+            } else {
+                System.out.println("✅ Table '" + tableName + "' existe déjà.");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Erreur lors de l'initialisation de la table '" + tableName + "': " + e.getMessage());
+            e.printStackTrace();
+            if (!e.getMessage().contains("already exists") &&
+                !e.getMessage().contains("Duplicate")) {
+                System.err.println("⚠️  Veuillez créer manuellement la table '" + tableName +
+                        "' en exécutant le script create-auth-token-tables.sql.");
+            }
+        }
+    }
+}
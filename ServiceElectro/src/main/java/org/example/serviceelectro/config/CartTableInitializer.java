@@ -31,7 +31,8 @@ public class CartTableInitializer implements CommandLineRunner {
                         "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, " +
                         "FOREIGN KEY (user_id) REFERENCES utilisateur(id) ON DELETE CASCADE, " +
                         "UNIQUE KEY unique_user_cart (user_id), " +
-                        "INDEX idx_user_id (user_id)" +
+                        "INDEX idx_user_id (user_id), " +
+                        "INDEX idx_updated_at (updated_at)" +
                         ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
 
                 jdbcTemplate.execute(createCartTableSQL);
@@ -40,6 +41,16 @@ public class CartTableInitializer implements CommandLineRunner {
                 System.out.println("========================================");
             } else {
                 System.out.println("✅ Table 'cart' existe déjà.");
+
+                // Index utilisé par CartCleanupJob pour trouver les paniers abandonnés
+                try {
+                    jdbcTemplate.execute("CREATE INDEX idx_updated_at ON cart (updated_at)");
+                    System.out.println("✅ Index 'idx_updated_at' ajouté sur cart");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate key name")) {
+                        System.out.println("ℹ️ Index 'idx_updated_at' existe déjà sur cart");
+                    }
+                }
             }
 
             // Vérifier et créer la table cart_item
@@ -71,6 +82,7 @@ public class CartTableInitializer implements CommandLineRunner {
                 System.out.println("========================================");
             } else {
                 System.out.println("✅ Table 'cart_item' existe déjà.");
+                ensureUniqueCartPublication();
             }
         } catch (Exception e) {
             System.err.println("❌ Erreur lors de l'initialisation des tables 'cart' et 'cart_item': " + e.getMessage());
@@ -81,5 +93,31 @@ public class CartTableInitializer implements CommandLineRunner {
             }
         }
     }
-}
 
+    /**
+     * Clé unique (cart_id, publication_id) utilisée par l'ajout atomique au panier.
+     * Les doublons existants sont d'abord fusionnés : quantités additionnées dans la ligne la plus ancienne.
+     */
+    private void ensureUniqueCartPublication() {
+        try {
+            String duplicates = "SELECT cart_id, publication_id, MIN(id) AS keep_id, SUM(quantity) AS total " +
+                    "FROM cart_item GROUP BY cart_id, publication_id HAVING COUNT(*) > 1";
+            int merged = jdbcTemplate.update("UPDATE cart_item ci JOIN (" + duplicates + ") d ON ci.id = d.keep_id " +
+                    "SET ci.quantity = d.total");
+            if (merged > 0) {
+                int deleted = jdbcTemplate.update("DELETE ci FROM cart_item ci JOIN (" + duplicates + ") d " +
+                        "ON ci.cart_id = d.cart_id AND ci.publication_id = d.publication_id AND ci.id <> d.keep_id");
+                System.out.println("🧹 " + merged + " article(s) en double fusionné(s) dans cart_item (" + deleted + " ligne(s) supprimée(s))");
+            }
+
+            jdbcTemplate.execute("ALTER TABLE cart_item ADD CONSTRAINT unique_cart_publication UNIQUE (cart_id, publication_id)");
+            System.out.println("✅ Clé unique 'unique_cart_publication' ajoutée");
+        } catch (Exception e) {
+            if (e.getMessage().contains("Duplicate key name")) {
+                System.out.println("ℹ️ Clé unique 'unique_cart_publication' existe déjà");
+            } else {
+                System.err.println("❌ Erreur lors de l'ajout de la clé unique sur cart_item: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -27,30 +27,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String email = null;
         String jwtToken = null;
-        String role = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
-            try {
-                email = jwtUtil.getEmailFromToken(jwtToken);
-                role = jwtUtil.getRoleFromToken(jwtToken);
-            } catch (Exception e) {
-                logger.error("Unable to get JWT Token", e);
-            }
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwtToken, email)) {
+        // Une seule vérification du token (ou une lecture du cache des tokens déjà vérifiés)
+        if (jwtToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtUtil.TokenClaims claims = jwtUtil.parseAndValidate(jwtToken);
+            if (claims != null) {
+                String role = claims.role();
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(
-                                email,
+                                claims.email(),
                                 null,
                                 List.of(new SimpleGrantedAuthority("ROLE_" + (role != null ? role : "USER")))
                         );
                 usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+            } else {
+                logger.debug("JWT invalide ou expiré");
             }
         }
         chain.doFilter(request, response);
@@ -1,14 +1,25 @@
 package org.example.serviceelectro.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.example.serviceelectro.servicees.TokenRevocationService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -17,11 +28,44 @@ public class JwtUtil {
     @Value("${jwt.secret:mySecretKey12345678901234567890123456789012345678901234567890}")
     private String secret;
 
-    @Value("${jwt.expiration:86400000}") // 24 hours default
+    // Durée du token d'accès ; renouvelable via /api/auth/refresh (le client renouvelle sur 401)
+    @Value("${jwt.expiration:900000}") // 15 minutes default
     private Long expiration;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Clé et parseur construits une seule fois (tous deux immuables et thread-safe)
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Claims déjà vérifiés, indexés par empreinte SHA-256 du token (le token lui-même n'est pas conservé)
+    private final Map<String, TokenClaims> claimsCache = new ConcurrentHashMap<>();
+
+    /**
+     * Contenu utile d'un token vérifié.
+     */
+    public record TokenClaims(String jti, String email, String role, long issuedAtMillis, long expiresAtMillis) {
+        public boolean isExpired(long nowMillis) {
+            return expiresAtMillis <= nowMillis;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
+    }
+
+    public long getExpirationMillis() {
+        return expiration;
     }
 
     public String generateToken(String email, String role) {
@@ -29,6 +73,7 @@ public class JwtUtil {
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(email)
                 .claim("role", role)
                 .issuedAt(now)
@@ -37,6 +82,58 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Vérifie le token (signature et expiration) en une seule analyse, ou le retrouve dans le cache
+     * des tokens déjà vérifiés. Retourne null si le token est invalide, expiré ou révoqué
+     * (la révocation est vérifiée en mémoire à chaque appel, y compris depuis le cache).
+     */
+    public TokenClaims parseAndValidate(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String key = digest(token);
+
+        TokenClaims cached = claimsCache.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return isRevoked(cached) ? null : cached;
+            }
+            claimsCache.remove(key, cached);
+            return null;
+        }
+
+        TokenClaims claims;
+        try {
+            Claims payload = getAllClaimsFromToken(token);
+            Date issuedAt = payload.getIssuedAt();
+            Date expiresAt = payload.getExpiration();
+            claims = new TokenClaims(payload.getId(), payload.getSubject(), payload.get("role", String.class),
+                    issuedAt != null ? issuedAt.getTime() : 0L,
+                    expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Signature invalide, token malformé ou expiré
+            return null;
+        }
+        if (claims.email() == null || claims.isExpired(now)) {
+            return null;
+        }
+        if (isRevoked(claims)) {
+            return null;
+        }
+
+        if (claimsCache.size() >= claimsCacheMaxSize) {
+            evictFromCache(now);
+        }
+        claimsCache.put(key, claims);
+        return claims;
+    }
+
+    // Révocation vérifiée à chaque appel : jti (déconnexion, token sans jti refusé) et changement de rôle
+    private boolean isRevoked(TokenClaims claims) {
+        return tokenRevocationService.isRevoked(claims.jti(), claims.email(), claims.issuedAtMillis());
+    }
+
     public String getEmailFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -55,11 +152,7 @@ public class JwtUtil {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public Boolean isTokenExpired(String token) {
@@ -68,8 +161,24 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, String email) {
-        final String tokenEmail = getEmailFromToken(token);
-        return (tokenEmail.equals(email) && !isTokenExpired(token));
+        TokenClaims claims = parseAndValidate(token);
+        return claims != null && claims.email().equals(email);
     }
-}
 
+    // Retire d'abord les tokens expirés ; si le cache reste plein, il est vidé (rechargé au fil des requêtes)
+    private void evictFromCache(long now) {
+        claimsCache.values().removeIf(claims -> claims.isExpired(now));
+        if (claimsCache.size() >= claimsCacheMaxSize) {
+            claimsCache.clear();
+        }
+    }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.serviceelectro.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MessageArchiveTableInitializer implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) throws Exception {
+        try {
+            String checkTableQuery = "SELECT COUNT(*) FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'message_archive'";
+
+            Integer tableCount = jdbcTemplate.queryForObject(checkTableQuery, Integer.class);
+
+            if (tableCount == null || tableCount == 0) {
+                System.out.println("========================================");
+                System.out.println("📋 Table 'message_archive' n'existe pas. Création en cours...");
+
+                // Archive froide : pas de clé étrangère, lignes compressées, uniquement des insertions
+                String createTableSQL = "CREATE TABLE IF NOT EXISTS message_archive (" +
+                        "id BIGINT PRIMARY KEY, " +
+                        "content VARCHAR(2000), " +
+                        "sender_id BIGINT NOT NULL, " +
+                        "receiver_id BIGINT NOT NULL, " +
+                        "is_read BOOLEAN NOT NULL DEFAULT FALSE, " +
+                        "file_url VARCHAR(500), " +
+                        "file_name VARCHAR(255), " +
+                        "file_type VARCHAR(100), " +
+                        "latitude DOUBLE, " +
+                        "longitude DOUBLE, " +
+                        "location_name VARCHAR(500), " +
+                        "created_at TIMESTAMP NULL DEFAULT NULL, " +
+                        "updated_at TIMESTAMP NULL DEFAULT NULL, " +
+                        "archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "INDEX idx_archive_conversation (sender_id, receiver_id, created_at)" +
+                        ") ENGINE=InnoDB ROW_FORMAT=COMPRESSED DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+
+                jdbcTemplate.execute(createTableSQL);
+
+                System.out.println("✅ Table 'message_archive' créée avec succès!");
+                System.out.println("========================================");
+            } else {
+                System.out.println("✅ Table 'message_archive' existe déjà.");
+
+                // La table a pu être créée par Hibernate (ddl-auto) : appliquer la compression et l'index
+                String rowFormat = jdbcTemplate.queryForObject(
+                        "SELECT row_format FROM information_schema.tables " +
+                                "WHERE table_schema = DATABASE() AND table_name = 'message_archive'",
+                        String.class);
+                if (!"Compressed".equalsIgnoreCase(rowFormat)) {
+                    try {
+                        jdbcTemplate.execute("ALTER TABLE message_archive ROW_FORMAT=COMPRESSED");
+                        System.out.println("✅ Table 'message_archive' compressée");
+                    } catch (Exception e) {
+                        System.out.println("ℹ️ Impossible de compresser 'message_archive': " + e.getMessage());
+                    }
+                }
+                try {
+                    jdbcTemplate.execute("CREATE INDEX idx_archive_conversation ON message_archive (sender_id, receiver_id, created_at)");
+                    System.out.println("✅ Index 'idx_archive_conversation' ajouté");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate key name")) {
+                        System.out.println("ℹ️ Index 'idx_archive_conversation' existe déjà");
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Erreur lors de l'initialisation de la table 'message_archive': " + e.getMessage());
+            e.printStackTrace();
+            if (!e.getMessage().contains("already exists") &&
+                !e.getMessage().contains("Duplicate")) {
+                System.err.println("⚠️  Veuillez créer manuellement la table 'message_archive' en exécutant le script SQL.");
+            }
+        }
+    }
+}
@@ -43,7 +43,8 @@ public class MessageTableInitializer implements CommandLineRunner {
                         "FOREIGN KEY (receiver_id) REFERENCES utilisateur(id) ON DELETE CASCADE, " +
                         "INDEX idx_sender (sender_id), " +
                         "INDEX idx_receiver (receiver_id), " +
-                        "INDEX idx_created_at (created_at)" +
+                        "INDEX idx_created_at (created_at), " +
+                        "INDEX idx_conversation (sender_id, receiver_id, created_at)" +
                         ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
                 
                 jdbcTemplate.execute(createTableSQL);
@@ -121,6 +122,16 @@ public class MessageTableInitializer implements CommandLineRunner {
                     } catch (Exception e) {
                         System.out.println("ℹ️ Impossible de modifier 'content': " + e.getMessage());
                     }
+
+                    // Index pour la lecture d'une conversation par plage de dates ("charger plus ancien")
+                    try {
+                        jdbcTemplate.execute("CREATE INDEX idx_conversation ON message (sender_id, receiver_id, created_at)");
+                        System.out.println("✅ Index 'idx_conversation' ajouté");
+                    } catch (Exception e) {
+                        if (e.getMessage().contains("Duplicate key name")) {
+                            System.out.println("ℹ️ Index 'idx_conversation' existe déjà");
+                        }
+                    }
                 } catch (Exception e) {
                     System.err.println("⚠️ Erreur lors de l'ajout des colonnes: " + e.getMessage());
                 }
@@ -0,0 +1,27 @@
+package org.example.serviceelectro.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Durées de conservation des notifications, utilisées par NotificationRetentionJob.
+ * Une durée à 0 désactive la purge correspondante.
+ */
+@ConfigurationProperties(prefix = "notification.retention")
+@Getter
+@Setter
+public class NotificationRetentionProperties {
+    private boolean enabled = true;
+    private int batchSize = 500; // Lignes supprimées par requête DELETE
+    private long pauseMs = 50; // Pause entre deux lots pour laisser passer les autres transactions
+
+    private int readDays = 90; // Notifications lues, types non listés dans readDaysByType
+    private Map<String, Integer> readDaysByType = new HashMap<>(); // ex. NEW_MESSAGE -> 30
+    private int unreadDays = 365; // Notifications jamais lues, tous types
+
+    private int maxReadPerUser = 200; // Au-delà, les plus anciennes notifications lues sont supprimées
+}
@@ -32,12 +32,18 @@ public class NotificationTableInitializer implements CommandLineRunner {
                         "is_read BOOLEAN NOT NULL DEFAULT FALSE, " +
                         "notification_type VARCHAR(50), " +
                         "publication_id BIGINT, " +
+                        "source_key VARCHAR(100), " +
+                        "occurrences INT DEFAULT 1, " +
                         "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                        "updated_at TIMESTAMP NULL DEFAULT NULL, " +
                         "FOREIGN KEY (user_id) REFERENCES utilisateur(id) ON DELETE CASCADE, " +
                         "FOREIGN KEY (publication_id) REFERENCES publication(id) ON DELETE SET NULL, " +
                         "INDEX idx_user_id (user_id), " +
                         "INDEX idx_is_read (is_read), " +
-                        "INDEX idx_created_at (created_at)" +
+                        "INDEX idx_created_at (created_at), " +
+                        "INDEX idx_retention (is_read, notification_type, created_at), " +
+                        "INDEX idx_coalesce (user_id, notification_type, source_key, is_read), " +
+                        "INDEX idx_user_created (user_id, created_at, id)" +
                         ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
                 
                 jdbcTemplate.execute(createTableSQL);
@@ -46,6 +52,60 @@ public class NotificationTableInitializer implements CommandLineRunner {
                 System.out.println("========================================");
             } else {
                 System.out.println("✅ Table 'notification' existe déjà.");
+
+                // Index utilisé par NotificationRetentionJob pour purger par état, type et date
+                try {
+                    jdbcTemplate.execute("CREATE INDEX idx_retention ON notification (is_read, notification_type, created_at)");
+                    System.out.println("✅ Index 'idx_retention' ajouté");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate key name")) {
+                        System.out.println("ℹ️ Index 'idx_retention' existe déjà");
+                    }
+                }
+
+                // Colonnes et index du regroupement des notifications (OutboxDispatcher)
+                try {
+                    jdbcTemplate.execute("ALTER TABLE notification ADD COLUMN source_key VARCHAR(100)");
+                    System.out.println("✅ Colonne 'source_key' ajoutée");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate column")) {
+                        System.out.println("ℹ️ Colonne 'source_key' existe déjà");
+                    }
+                }
+                try {
+                    jdbcTemplate.execute("ALTER TABLE notification ADD COLUMN occurrences INT DEFAULT 1");
+                    System.out.println("✅ Colonne 'occurrences' ajoutée");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate column")) {
+                        System.out.println("ℹ️ Colonne 'occurrences' existe déjà");
+                    }
+                }
+                try {
+                    jdbcTemplate.execute("ALTER TABLE notification ADD COLUMN updated_at TIMESTAMP NULL DEFAULT NULL");
+                    System.out.println("✅ Colonne 'updated_at' ajoutée");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate column")) {
+                        System.out.println("ℹ️ Colonne 'updated_at' existe déjà");
+                    }
+                }
+                try {
+                    jdbcTemplate.execute("CREATE INDEX idx_coalesce ON notification (user_id, notification_type, source_key, is_read)");
+                    System.out.println("✅ Index 'idx_coalesce' ajouté");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate key name")) {
+                        System.out.println("ℹ️ Index 'idx_coalesce' existe déjà");
+                    }
+                }
+
+                // Index du parcours par curseur (GET /api/notifications/user/{userId}/page)
+                try {
+                    jdbcTemplate.execute("CREATE INDEX idx_user_created ON notification (user_id, created_at, id)");
+                    System.out.println("✅ Index 'idx_user_created' ajouté");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate key name")) {
+                        System.out.println("ℹ️ Index 'idx_user_created' existe déjà");
+                    }
+                }
             }
         } catch (Exception e) {
             System.err.println("❌ Erreur lors de l'initialisation de la table 'notification': " + e.getMessage());
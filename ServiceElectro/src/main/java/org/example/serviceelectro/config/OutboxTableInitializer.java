@@ -0,0 +1,66 @@
+package org.example.serviceelectro.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxTableInitializer implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) throws Exception {
+        try {
+            String checkTableQuery = "SELECT COUNT(*) FROM information_schema.tables " +
+                    "WHERE table_schema = DATABASE() AND table_name = 'outbox_event'";
+
+            Integer tableCount = jdbcTemplate.queryForObject(checkTableQuery, Integer.class);
+
+            if (tableCount == null || tableCount == 0) {
+                System.out.println("========================================");
+                System.out.println("📋 Table 'outbox_event' n'existe pas. Création en cours...");
+
+                // Pas de clé étrangère : un événement dont le destinataire a disparu est marqué FAILED par le dispatcher
+                String createTableSQL = "CREATE TABLE IF NOT EXISTS outbox_event (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                        "recipient_id BIGINT NOT NULL, " +
+                        "event_type VARCHAR(50) NOT NULL, " +
+                        "message VARCHAR(500) NOT NULL, " +
+                        "publication_id BIGINT, " +
+                        "source_key VARCHAR(100), " +
+                        "status VARCHAR(20) NOT NULL DEFAULT 'PENDING', " +
+                        "attempts INT NOT NULL DEFAULT 0, " +
+                        "last_error VARCHAR(500), " +
+                        "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                        "processed_at TIMESTAMP NULL DEFAULT NULL, " +
+                        "INDEX idx_outbox_status_id (status, id)" +
+                        ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
+
+                jdbcTemplate.execute(createTableSQL);
+
+                System.out.println("✅ Table 'outbox_event' créée avec succès!");
+                System.out.println("========================================");
+            } else {
+                System.out.println("✅ Table 'outbox_event' existe déjà.");
+                try {
+                    jdbcTemplate.execute("ALTER TABLE outbox_event ADD COLUMN source_key VARCHAR(100)");
+                    System.out.println("✅ Colonne 'source_key' ajoutée");
+                } catch (Exception e) {
+                    if (e.getMessage().contains("Duplicate column")) {
+                        System.out.println("ℹ️ Colonne 'source_key' existe déjà");
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Erreur lors de l'initialisation de la table 'outbox_event': " + e.getMessage());
+            e.printStackTrace();
+            if (!e.getMessage().contains("already exists") &&
+                !e.getMessage().contains("Duplicate")) {
+                System.err.println("⚠️  Veuillez créer manuellement la table 'outbox_event' en exécutant le script SQL.");
+            }
+        }
+    }
+}
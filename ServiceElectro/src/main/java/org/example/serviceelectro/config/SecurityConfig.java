@@ -1,8 +1,12 @@
 package org.example.serviceelectro.config;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -10,6 +14,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
@@ -19,9 +24,11 @@ import org.springframework.web.cors.CorsConfigurationSource;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, AuthRateLimitFilter authRateLimitFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.authRateLimitFilter = authRateLimitFilter;
     }
 
     @Bean
@@ -29,7 +36,50 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    // Le filtre JWT ne doit s'exécuter que dans la chaîne de sécurité principale, pas comme filtre servlet global
     @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // Idem pour la limitation de débit : placée dans la chaîne, après CORS (les réponses 429 restent lisibles par le navigateur)
+    @Bean
+    public FilterRegistrationBean<AuthRateLimitFilter> authRateLimitFilterRegistration() {
+        FilterRegistrationBean<AuthRateLimitFilter> registration = new FilterRegistrationBean<>(authRateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * Voie rapide pour les routes publiques en lecture à fort trafic (fichiers, photos, catalogue) :
+     * aucune décision d'autorisation, donc ni analyse du token, ni contexte de sécurité, ni utilisateur anonyme.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain publicFastLaneFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource)
+            throws Exception {
+        http
+                .securityMatchers(matchers -> matchers
+                        .requestMatchers(HttpMethod.GET, "/api/pub/files/**")
+                        .requestMatchers(HttpMethod.GET, "/api/messages/files/**")
+                        .requestMatchers(HttpMethod.GET, "/api/utilis/profile/photo/**")
+                        .requestMatchers(HttpMethod.GET, "/api/pub"))
+                .csrf(csrf -> csrf.disable())
+                .cors(cors -> cors.configurationSource(corsConfigurationSource))
+                .securityContext(context -> context.disable())
+                .sessionManagement(session -> session.disable())
+                .requestCache(cache -> cache.disable())
+                .anonymous(anonymous -> anonymous.disable())
+                .servletApi(servletApi -> servletApi.disable())
+                .logout(logout -> logout.disable());
+
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource)
             throws Exception {
         http
@@ -37,6 +87,9 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Dispatch asynchrone des flux SSE : la requête initiale a déjà été autorisée
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/utilis").permitAll() // Allow signup
@@ -55,6 +108,9 @@ public class SecurityConfig {
                         // Messages endpoints - require authentication
                         .requestMatchers("/api/messages/**").authenticated()
                         
+                        // Flux SSE : authentifié par un ticket à usage unique, vérifié dans le contrôleur
+                        .requestMatchers(HttpMethod.GET, "/api/notifications/stream").permitAll()
+
                         // Notifications endpoints - require authentication
                         .requestMatchers("/api/notifications/**").authenticated()
                         
@@ -71,6 +127,10 @@ public class SecurityConfig {
                         
                         // All other requests need authentication
                         .anyRequest().authenticated())
+                // Token absent, expiré ou révoqué : 401 (le client renouvelle alors son token), 403 réservé aux droits insuffisants
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(authRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
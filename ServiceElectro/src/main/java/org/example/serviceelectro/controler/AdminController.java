@@ -1,5 +1,8 @@
 package org.example.serviceelectro.controler;
 
+import jakarta.validation.Valid;
+import org.example.serviceelectro.dto.BroadcastRequest;
+import org.example.serviceelectro.dto.BroadcastStatusDTO;
 import org.example.serviceelectro.dto.PublicationDTO;
 import org.example.serviceelectro.dto.UtilisateurDTO;
 import org.example.serviceelectro.dto.VerifyPublicationRequest;
@@ -7,9 +10,11 @@ import org.example.serviceelectro.entities.Publication;
 import org.example.serviceelectro.entities.Utilisateur;
 import org.example.serviceelectro.mapper.PublicationMapper;
 import org.example.serviceelectro.mapper.UtilisateurMapper;
+import org.example.serviceelectro.servicees.NotificationBroadcastService;
 import org.example.serviceelectro.servicees.PubImpl;
 import org.example.serviceelectro.servicees.UserImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -35,6 +40,30 @@ public class AdminController {
     @Autowired
     private PublicationMapper publicationMapper;
 
+    @Autowired
+    private NotificationBroadcastService broadcastService;
+
+    // Notification à tous les utilisateurs : traitée en arrière-plan, réponse 202 avec l'ID de suivi
+    @PostMapping("/notifications/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> broadcastNotification(@Valid @RequestBody BroadcastRequest request) {
+        try {
+            BroadcastStatusDTO status = broadcastService.prepare(request.getMessage(), request.getType(), request.getAudience());
+            broadcastService.run(status.getId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/notifications/broadcast/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BroadcastStatusDTO> getBroadcastStatus(@PathVariable String id) {
+        return broadcastService.getStatus(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // User Management
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
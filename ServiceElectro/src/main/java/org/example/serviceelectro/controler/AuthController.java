@@ -3,7 +3,10 @@ package org.example.serviceelectro.controler;
 import jakarta.validation.Valid;
 import org.example.serviceelectro.dto.LoginRequest;
 import org.example.serviceelectro.dto.LoginResponse;
+import org.example.serviceelectro.dto.RefreshTokenRequest;
 import org.example.serviceelectro.servicees.AuthService;
+import org.example.serviceelectro.servicees.CartWriteBehindBuffer;
+import org.example.serviceelectro.servicees.PresenceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,7 +20,10 @@ public class AuthController {
     private AuthService authService;
 
     @Autowired
-    private org.example.serviceelectro.servicees.UserImpl userService;
+    private CartWriteBehindBuffer cartWriteBehindBuffer;
+
+    @Autowired
+    private PresenceService presenceService;
     
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
@@ -60,10 +66,22 @@ public class AuthController {
         }
     }
     
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
     @PostMapping("/logout/{userId}")
-    public ResponseEntity<?> logout(@PathVariable Long userId) {
+    public ResponseEntity<?> logout(@PathVariable Long userId,
+                                    @RequestHeader(value = "Authorization", required = false) String authorization,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
         try {
-            userService.setUserOnline(userId, false);
+            String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring(7) : null;
+            authService.revokeTokens(accessToken, request != null ? request.getRefreshToken() : null);
+            presenceService.markOffline(userId);
+            // Quantités du panier gardées en mémoire (mode write-behind) écrites à la déconnexion
+            cartWriteBehindBuffer.flushIfPending(userId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erreur lors de la déconnexion");
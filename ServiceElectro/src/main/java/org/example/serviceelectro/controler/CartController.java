@@ -1,14 +1,16 @@
 package org.example.serviceelectro.controler;
 
 import org.example.serviceelectro.dto.CartDTO;
-import org.example.serviceelectro.entities.Cart;
-import org.example.serviceelectro.mapper.CartMapper;
 import org.example.serviceelectro.servicees.ICart;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.NoSuchElementException;
+
 @RestController
 @RequestMapping("/api/cart")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
@@ -17,15 +19,11 @@ public class CartController {
     @Autowired
     private ICart cartService;
 
-    @Autowired
-    private CartMapper cartMapper;
-
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<CartDTO> getCart(@PathVariable Long userId) {
         try {
-            Cart cart = cartService.getOrCreateCart(userId);
-            return ResponseEntity.ok(cartMapper.toDTO(cart));
+            return ResponseEntity.ok(cartService.getCartView(userId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -38,8 +36,7 @@ public class CartController {
             @RequestBody AddItemRequest request) {
         try {
             cartService.addItemToCart(userId, request.getPublicationId(), request.getQuantity());
-            Cart cart = cartService.getOrCreateCart(userId);
-            return ResponseEntity.ok(cartMapper.toDTO(cart));
+            return ResponseEntity.ok(cartService.getCartView(userId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -57,6 +54,10 @@ public class CartController {
             
             cartService.removeItemFromCart(userId, cartItemId);
             return ResponseEntity.ok().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IllegalStateException e) {
@@ -75,8 +76,7 @@ public class CartController {
             @RequestBody UpdateQuantityRequest request) {
         try {
             cartService.updateItemQuantity(userId, cartItemId, request.getQuantity());
-            Cart cart = cartService.getOrCreateCart(userId);
-            return ResponseEntity.ok(cartMapper.toDTO(cart));
+            return ResponseEntity.ok(cartService.getCartView(userId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
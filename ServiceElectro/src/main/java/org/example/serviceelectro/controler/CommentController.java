@@ -9,6 +9,7 @@ import org.example.serviceelectro.mapper.CommentMapper;
 import org.example.serviceelectro.servicees.CommentImpl;
 import org.example.serviceelectro.servicees.PubImpl;
 import org.example.serviceelectro.servicees.UserImpl;
+import org.example.serviceelectro.servicees.UserDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +35,9 @@ public class CommentController {
     @Autowired
     private UserImpl userService;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
     @GetMapping
     public ResponseEntity<List<CommentDTO>> getAllComments() {
         List<CommentDTO> comments = commentService.getAllComments().stream()
@@ -57,8 +61,11 @@ public class CommentController {
 
         Utilisateur utilisateur = null;
         if (commentDTO.getUtilisateurId() != null) {
-            utilisateur = userService.findById(commentDTO.getUtilisateurId())
-                    .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
+            // Existence vérifiée dans le cache des résumés ; l'auteur n'est qu'une référence (pas de SELECT)
+            Long utilisateurId = userDirectory.getSummaryById(commentDTO.getUtilisateurId())
+                    .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"))
+                    .getId();
+            utilisateur = userService.getReference(utilisateurId);
         }
 
         Comment comment = commentMapper.toEntity(commentDTO, publication, utilisateur);
@@ -0,0 +1,67 @@
+package org.example.serviceelectro.controler;
+
+import org.example.serviceelectro.dto.BadgeCountsDTO;
+import org.example.serviceelectro.servicees.CurrentUser;
+import org.example.serviceelectro.servicees.ICart;
+import org.example.serviceelectro.servicees.INotification;
+import org.example.serviceelectro.servicees.Imessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+
+/**
+ * Endpoints de l'utilisateur connecté, identifié par le JWT (pas d'ID dans l'URL).
+ */
+@RestController
+@RequestMapping("/api/me")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class MeController {
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private INotification notificationService;
+
+    @Autowired
+    private Imessage messageService;
+
+    @Autowired
+    private ICart cartService;
+
+    // Les trois compteurs des badges en un seul appel ; 304 si rien n'a changé depuis le dernier poll
+    @GetMapping("/badges")
+    public ResponseEntity<BadgeCountsDTO> getBadges(WebRequest webRequest) {
+        Optional<Long> userIdOpt = currentUser.getId();
+        if (userIdOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long userId = userIdOpt.get();
+
+        long notifications = notificationService.getUnreadCount(userId);
+        long messages = messageService.countUnreadMessages(userId);
+        Long cartItems = cartService.getCartItemCount(userId);
+        String version = notifications + "-" + messages + "-" + (cartItems != null ? cartItems : 0);
+
+        String etag = "\"" + version + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null; // Réponse 304 déjà préparée par checkNotModified
+        }
+
+        BadgeCountsDTO badges = BadgeCountsDTO.builder()
+                .notifications(notifications)
+                .messages(messages)
+                .cartItems(cartItems != null ? cartItems : 0L)
+                .version(version)
+                .build();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(badges);
+    }
+}
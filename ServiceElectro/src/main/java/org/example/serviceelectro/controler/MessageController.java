@@ -1,14 +1,21 @@
 package org.example.serviceelectro.controler;
 
+import org.example.serviceelectro.dto.ConversationSummaryDTO;
 import org.example.serviceelectro.dto.MessageDTO;
+import org.example.serviceelectro.dto.MessageSearchHitDTO;
+import org.example.serviceelectro.dto.PagedResponse;
+import org.example.serviceelectro.dto.UserSummary;
 import org.example.serviceelectro.dto.UtilisateurDTO;
 import org.example.serviceelectro.entities.Message;
-import org.example.serviceelectro.entities.Utilisateur;
 import org.example.serviceelectro.mapper.MessageMapper;
-import org.example.serviceelectro.mapper.UtilisateurMapper;
+import org.example.serviceelectro.servicees.ConversationOverviewService;
+import org.example.serviceelectro.servicees.CurrentUser;
 import org.example.serviceelectro.servicees.MessageImpl;
+import org.example.serviceelectro.servicees.MessageSearchIndex;
+import org.example.serviceelectro.servicees.UserDirectory;
 import org.example.serviceelectro.servicees.UserImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -19,6 +26,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -38,7 +46,16 @@ public class MessageController {
     private MessageMapper messageMapper;
 
     @Autowired
-    private UtilisateurMapper utilisateurMapper;
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private ConversationOverviewService conversationOverviewService;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private CurrentUser currentUser;
 
     // Upload de fichier pour un message
     @PostMapping("/upload-file")
@@ -124,34 +141,28 @@ public class MessageController {
                 System.out.println("❌ Message must have content, file, or location");
                 return ResponseEntity.badRequest().body("Le message doit contenir du texte, un fichier ou une localisation");
             }
-            if (messageDTO.getSenderId() == null) {
-                System.out.println("❌ Sender ID is null");
-                return ResponseEntity.badRequest().body("L'ID de l'expéditeur est requis");
-            }
             if (messageDTO.getReceiverId() == null) {
                 System.out.println("❌ Receiver ID is null");
                 return ResponseEntity.badRequest().body("L'ID du destinataire est requis");
             }
 
-            System.out.println("🔍 Looking for sender (ID: " + messageDTO.getSenderId() + ")...");
-            Optional<Utilisateur> senderOpt = userService.findById(messageDTO.getSenderId());
+            // L'expéditeur est toujours l'appelant (résumé déjà résolu pour la requête) : le senderId
+            // du corps est ignoré, sinon n'importe qui pourrait écrire au nom d'un autre
+            Optional<UserSummary> senderOpt = currentUser.get();
             if (senderOpt.isEmpty()) {
-                System.out.println("❌ Sender not found: " + messageDTO.getSenderId());
-                return ResponseEntity.badRequest().body("Expéditeur non trouvé");
+                System.out.println("❌ No authenticated sender");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentification requise");
             }
-            System.out.println("✅ Sender found: " + senderOpt.get().getEmail());
 
-            System.out.println("🔍 Looking for receiver (ID: " + messageDTO.getReceiverId() + ")...");
-            Optional<Utilisateur> receiverOpt = userService.findById(messageDTO.getReceiverId());
+            Optional<UserSummary> receiverOpt = userDirectory.getSummaryById(messageDTO.getReceiverId());
             if (receiverOpt.isEmpty()) {
                 System.out.println("❌ Receiver not found: " + messageDTO.getReceiverId());
                 return ResponseEntity.badRequest().body("Destinataire non trouvé");
             }
-            System.out.println("✅ Receiver found: " + receiverOpt.get().getEmail());
 
             // Validation : L'administrateur ne peut envoyer des messages qu'aux utilisateurs
-            Utilisateur sender = senderOpt.get();
-            Utilisateur receiver = receiverOpt.get();
+            UserSummary sender = senderOpt.get();
+            UserSummary receiver = receiverOpt.get();
             
             if ("ADMIN".equals(sender.getRole())) {
                 // Si l'expéditeur est un ADMIN, le destinataire doit être un USER
@@ -167,7 +178,8 @@ public class MessageController {
             System.out.println("🔄 Creating message entity...");
             Message message;
             try {
-                message = messageMapper.toEntity(messageDTO, senderOpt.get(), receiverOpt.get());
+                message = messageMapper.toEntity(messageDTO,
+                        userService.getReference(sender.getId()), userService.getReference(receiver.getId()));
                 System.out.println("✅ Message entity created successfully");
             } catch (Exception e) {
                 System.out.println("❌ Error creating message entity: " + e.getMessage());
@@ -191,7 +203,7 @@ public class MessageController {
             System.out.println("🔄 Converting to DTO...");
             MessageDTO responseDTO;
             try {
-                responseDTO = messageMapper.toDTO(savedMessage);
+                responseDTO = messageMapper.toDTO(savedMessage, sender, receiver);
                 System.out.println("✅ DTO created successfully");
             } catch (Exception e) {
                 System.out.println("❌ Error converting to DTO: " + e.getMessage());
@@ -275,6 +287,54 @@ public class MessageController {
         }
     }
 
+    // Charger les messages plus anciens d'une conversation (table message puis archive)
+    @GetMapping("/conversation/{userId1}/{userId2}/older")
+    public ResponseEntity<List<MessageDTO>> getOlderMessages(
+            @PathVariable Long userId1,
+            @PathVariable Long userId2,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(defaultValue = "50") int limit) {
+        // Seuls les deux participants (et l'admin, qui voit toutes les conversations) lisent l'historique
+        Optional<Long> callerIdOpt = currentUser.getId();
+        if (callerIdOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long callerId = callerIdOpt.get();
+        if (!callerId.equals(userId1) && !callerId.equals(userId2) && !userDirectory.isAdmin(callerId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        LocalDateTime cursor = before != null ? before : LocalDateTime.now();
+        int pageSize = Math.max(1, Math.min(limit, 200));
+
+        List<MessageDTO> messageDTOs = messageService.getOlderMessages(userId1, userId2, cursor, pageSize).stream()
+                .map(messageMapper::toDTO)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(messageDTOs);
+    }
+
+    // Rechercher dans les conversations de l'utilisateur connecté
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Optional<Long> userIdOpt = currentUser.getId();
+        if (userIdOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Utilisateur non trouvé");
+        }
+
+        try {
+            int pageIndex = Math.max(0, page);
+            int pageSize = Math.max(1, Math.min(size, 100));
+            PagedResponse<MessageSearchHitDTO> results =
+                    messageSearchIndex.search(userIdOpt.get(), query, pageIndex, pageSize);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // Récupérer tous les messages d'un utilisateur (envoyés et reçus)
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<MessageDTO>> getUserMessages(@PathVariable Long userId) {
@@ -295,13 +355,24 @@ public class MessageController {
     // Récupérer les conversations de l'admin avec tous les utilisateurs
     @GetMapping("/admin/conversations")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<MessageDTO>> getAdminConversations() {
-        // Récupérer tous les messages où l'admin est impliqué
-        List<Message> allMessages = messageService.getAllMessages();
-        List<MessageDTO> messageDTOs = allMessages.stream()
-                .map(messageMapper::toDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(messageDTOs);
+    public ResponseEntity<?> getAdminConversations(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "recent") String sort) {
+        Optional<Long> adminIdOpt = userDirectory.getAdminId();
+        if (adminIdOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        int pageIndex = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, 100));
+        boolean oldestFirst = "oldest".equalsIgnoreCase(sort);
+
+        PagedResponse<ConversationSummaryDTO> conversations = conversationOverviewService.getConversationSummaries(
+                adminIdOpt.get(), userId, search, oldestFirst, pageIndex, pageSize);
+        return ResponseEntity.ok(conversations);
     }
 
     // Récupérer la conversation entre l'admin et un utilisateur spécifique
@@ -309,15 +380,13 @@ public class MessageController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<MessageDTO>> getAdminConversationWithUser(@PathVariable Long userId) {
         // Trouver l'admin (premier utilisateur avec rôle ADMIN)
-        Optional<Utilisateur> adminOpt = userService.getAllUtilisateurs().stream()
-                .filter(u -> "ADMIN".equals(u.getRole()))
-                .findFirst();
+        Optional<Long> adminIdOpt = userDirectory.getAdminId();
 
-        if (adminOpt.isEmpty()) {
+        if (adminIdOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        Long adminId = adminOpt.get().getId();
+        Long adminId = adminIdOpt.get();
         List<Message> messages = messageService.getConversation(adminId, userId);
         List<MessageDTO> messageDTOs = messages.stream()
                 .map(messageMapper::toDTO)
@@ -379,16 +448,14 @@ public class MessageController {
     public ResponseEntity<Long> getAdminId() {
         try {
             System.out.println("🔍 Searching for admin user...");
-            Optional<Utilisateur> adminOpt = userService.getAllUtilisateurs().stream()
-                    .filter(u -> "ADMIN".equals(u.getRole()))
-                    .findFirst();
+            Optional<Long> adminIdOpt = userDirectory.getAdminId();
 
-            if (adminOpt.isEmpty()) {
+            if (adminIdOpt.isEmpty()) {
                 System.out.println("❌ No admin user found");
                 return ResponseEntity.notFound().build();
             }
 
-            Long adminId = adminOpt.get().getId();
+            Long adminId = adminIdOpt.get();
             System.out.println("✅ Admin ID found: " + adminId);
             return ResponseEntity.ok(adminId);
         } catch (Exception e) {
@@ -402,13 +469,8 @@ public class MessageController {
     @GetMapping("/admin/users")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<UtilisateurDTO>> getUsersWithConversations() {
-        // Retourner tous les utilisateurs sauf les administrateurs
-        List<UtilisateurDTO> users = userService.getAllUtilisateurs().stream()
-                .filter(u -> !"ADMIN".equals(u.getRole())) // Exclure les administrateurs
-                .map(utilisateurMapper::toDTO)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(users);
+        // Retourner tous les utilisateurs sauf les administrateurs (résumés en cache)
+        return ResponseEntity.ok(userDirectory.getUserSummaries());
     }
 
     // Classe interne pour la requête de suppression multiple
@@ -1,15 +1,24 @@
 package org.example.serviceelectro.controler;
 
+import org.example.serviceelectro.dto.CursorPage;
 import org.example.serviceelectro.dto.NotificationDTO;
 import org.example.serviceelectro.entities.Notification;
 import org.example.serviceelectro.mapper.NotificationMapper;
+import org.example.serviceelectro.servicees.CurrentUser;
 import org.example.serviceelectro.servicees.INotification;
+import org.example.serviceelectro.servicees.NotificationStreamService;
+import org.example.serviceelectro.servicees.StreamTicketService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,6 +32,41 @@ public class NotificationController {
     @Autowired
     private NotificationMapper notificationMapper;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    @Autowired
+    private StreamTicketService streamTicketService;
+
+    // Ticket à usage unique pour ouvrir le flux SSE (EventSource ne permet pas d'en-tête Authorization)
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<Map<String, String>> createStreamTicket() {
+        Optional<Long> userIdOpt = currentUser.getId();
+        if (userIdOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(Map.of("ticket", streamTicketService.issue(userIdOpt.get())));
+    }
+
+    // Flux SSE des notifications de l'utilisateur connecté (remplace le polling de la liste)
+    // Authentifié par un ticket de /stream-ticket (EventSource) ou par l'en-tête Authorization
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @RequestParam(value = "ticket", required = false) String ticket,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Optional<Long> userIdOpt = ticket != null ? streamTicketService.redeem(ticket) : currentUser.getId();
+        if (userIdOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no") // Pas de mise en tampon par un proxy nginx
+                .body(notificationStreamService.subscribe(userIdOpt.get(), lastEventId));
+    }
+
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<List<NotificationDTO>> getUserNotifications(@PathVariable Long userId) {
@@ -44,6 +88,17 @@ public class NotificationController {
         }
     }
 
+    // Tiroir de notifications : pages de taille fixe, "cursor" = nextCursor de la page précédente
+    @GetMapping("/user/{userId}/page")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<NotificationDTO>> getNotificationPage(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        return ResponseEntity.ok(notificationService.getNotificationPage(userId, cursor, size, unreadOnly));
+    }
+
     @GetMapping("/user/{userId}/unread")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(@PathVariable Long userId) {
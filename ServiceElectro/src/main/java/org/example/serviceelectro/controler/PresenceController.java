@@ -0,0 +1,49 @@
+package org.example.serviceelectro.controler;
+
+import org.example.serviceelectro.servicees.CurrentUser;
+import org.example.serviceelectro.servicees.PresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Présence en ligne : signe de vie du client connecté et statut de plusieurs utilisateurs.
+ */
+@RestController
+@RequestMapping("/api/presence")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class PresenceController {
+
+    private static final int MAX_BATCH_SIZE = 500;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private CurrentUser currentUser;
+
+    // À appeler régulièrement par le client (ex. toutes les 30 s) tant que l'application est ouverte
+    @PostMapping("/heartbeat")
+    public ResponseEntity<Void> heartbeat() {
+        Optional<Long> userIdOpt = currentUser.getId();
+        if (userIdOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        presenceService.heartbeat(userIdOpt.get());
+        return ResponseEntity.noContent().build();
+    }
+
+    // GET /api/presence?userIds=1,2,3 -> {"1": true, "2": false, "3": false}
+    @GetMapping
+    public ResponseEntity<Map<Long, Boolean>> getPresence(@RequestParam List<Long> userIds) {
+        if (userIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Trop d'utilisateurs demandés (maximum " + MAX_BATCH_SIZE + ")");
+        }
+        return ResponseEntity.ok(presenceService.getOnlineStatus(userIds));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BadgeCountsDTO {
+    private Long notifications;
+    private Long messages;
+    private Long cartItems;
+    private String version; // Identique à l'ETag de la réponse
+}
@@ -0,0 +1,22 @@
+package org.example.serviceelectro.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastRequest {
+    @NotBlank(message = "Le message est requis")
+    @Size(max = 500, message = "Le message ne doit pas dépasser 500 caractères")
+    private String message;
+
+    private String type; // "BROADCAST" par défaut
+
+    private String audience; // "ALL" (par défaut) ou "USERS" (sans les administrateurs)
+}
@@ -0,0 +1,26 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastStatusDTO {
+    private String id;
+    private String message;
+    private String type;
+    private String audience;
+    private String state; // PENDING, RUNNING, DONE, FAILED
+    private Long totalRecipients;
+    private Long inserted;
+    private Integer progressPercent;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -16,6 +16,8 @@ public class CartDTO {
     private Long id;
     private Long userId;
     private List<CartItemDTO> items;
+    private Integer totalQuantity; // Somme des quantités
+    private Double totalPrice; // Somme prix x quantité (prix absent compté 0)
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
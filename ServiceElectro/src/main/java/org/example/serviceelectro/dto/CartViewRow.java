@@ -0,0 +1,30 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne de la vue panier (CartItemRepository.findCartView) : le panier et un de ses articles
+ * avec les seules colonnes de publication affichées. Les champs d'article sont null pour un panier vide.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartViewRow {
+    private Long cartId;
+    private LocalDateTime cartCreatedAt;
+    private LocalDateTime cartUpdatedAt;
+    private Long itemId;
+    private Long publicationId;
+    private String publicationTitle;
+    private String publicationDescription;
+    private Double publicationPrice;
+    private String publicationFileUrl;
+    private Integer quantity;
+    private LocalDateTime itemCreatedAt;
+}
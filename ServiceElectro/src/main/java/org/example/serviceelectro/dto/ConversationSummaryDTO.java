@@ -0,0 +1,21 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSummaryDTO {
+    private Long userId;
+    private String username;
+    private String email;
+    private LocalDateTime lastMessageAt;
+    private Long messageCount;
+    private Long unreadCount; // Messages reçus par l'admin et non lus
+}
@@ -0,0 +1,23 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page d'une liste parcourue par curseur : nextCursor est à renvoyer tel quel pour la page suivante
+ * (null quand il n'y a plus rien à charger).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+}
@@ -15,5 +15,8 @@ public class LoginResponse {
     private String role;
     private Long userId;
     private String username;
+    private String refreshToken;
+    // Durée de validité du token d'accès, en secondes
+    private Long expiresIn;
 }
 
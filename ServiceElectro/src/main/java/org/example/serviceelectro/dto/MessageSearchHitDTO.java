@@ -0,0 +1,17 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchHitDTO {
+    private MessageDTO message;
+    // Texte échappé en HTML, termes trouvés entourés de <mark></mark>
+    private String highlightedContent;
+    private String highlightedFileName;
+}
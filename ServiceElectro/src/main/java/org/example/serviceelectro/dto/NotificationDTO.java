@@ -19,6 +19,9 @@ public class NotificationDTO {
     private String type;
     private Long publicationId;
     private String publicationTitle;
+    private String sourceKey;
+    private Integer occurrences;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt; // Dernier événement regroupé (null si un seul)
 }
 
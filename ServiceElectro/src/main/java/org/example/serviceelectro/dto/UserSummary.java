@@ -0,0 +1,25 @@
+package org.example.serviceelectro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résumé d'un utilisateur (UserRepository.findSummaryByEmail / findSummaryById), mis en cache par UserDirectory.
+ * username est le nom réel (getRealUsername), pas l'email.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String email;
+    private String username;
+    private String role;
+
+    public String getDisplayName() {
+        return username != null ? username : email;
+    }
+}
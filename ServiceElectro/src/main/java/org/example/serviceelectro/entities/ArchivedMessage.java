@@ -0,0 +1,84 @@
+package org.example.serviceelectro.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Message déplacé dans l'archive froide (table message_archive, compressée et en ajout seul).
+ * L'ID est celui du message d'origine.
+ */
+@Entity
+@Table(name = "message_archive")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ArchivedMessage implements Serializable {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = true, length = 2000)
+    private String content;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Utilisateur sender;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "receiver_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Utilisateur receiver;
+
+    @Column(name = "is_read", nullable = false)
+    private Boolean isRead;
+
+    @Column(nullable = true)
+    private String fileUrl;
+
+    @Column(nullable = true)
+    private String fileName;
+
+    @Column(nullable = true)
+    private String fileType;
+
+    @Column(nullable = true)
+    private Double latitude;
+
+    @Column(nullable = true)
+    private Double longitude;
+
+    @Column(nullable = true, length = 500)
+    private String locationName;
+
+    @Column(nullable = true, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = true, updatable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime archivedAt;
+
+    // Vue "message" de l'archive, pour réutiliser MessageMapper côté API
+    public Message toMessage() {
+        Message message = new Message();
+        message.setId(id);
+        message.setContent(content);
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setIsRead(isRead);
+        message.setFileUrl(fileUrl);
+        message.setFileName(fileName);
+        message.setFileType(fileType);
+        message.setLatitude(latitude);
+        message.setLongitude(longitude);
+        message.setLocationName(locationName);
+        message.setCreatedAt(createdAt);
+        message.setUpdatedAt(updatedAt);
+        return message;
+    }
+}
@@ -9,7 +9,8 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_item")
+@Table(name = "cart_item", uniqueConstraints = @UniqueConstraint(name = "unique_cart_publication",
+        columnNames = {"cart_id", "publication_id"}))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -22,7 +22,7 @@ public class Notification implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private Utilisateur user;
 
@@ -36,12 +36,22 @@ public class Notification implements Serializable {
     @Column(name = "notification_type")
     private String type; // "PUBLICATION_APPROVED", "PUBLICATION_REJECTED", etc.
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "publication_id")
     private Publication publication;
 
+    @Column(name = "source_key", length = 100)
+    private String sourceKey; // Source des événements regroupés dans cette notification
+
+    @Column(nullable = true) // NULL pour les anciennes lignes, équivalent à 1
+    @Builder.Default
+    private Integer occurrences = 1; // Nombre d'événements regroupés
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = true, updatable = false) // Dernier événement regroupé, écrit par coalesce()
+    private LocalDateTime updatedAt;
 }
 
@@ -0,0 +1,63 @@
+package org.example.serviceelectro.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "idx_outbox_status_id", columnList = "status, id")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+public class OutboxEvent implements Serializable {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId; // Utilisateur destinataire de la notification
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType; // "NEW_MESSAGE", "PUBLICATION_APPROVED", etc.
+
+    @Column(nullable = false, length = 500)
+    private String message;
+
+    @Column(name = "publication_id")
+    private Long publicationId;
+
+    @Column(name = "source_key", length = 100)
+    private String sourceKey; // Non null : événements regroupables (ex. "message:12" = messages de l'utilisateur 12)
+
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private String status = STATUS_PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
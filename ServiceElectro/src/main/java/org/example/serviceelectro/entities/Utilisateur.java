@@ -48,7 +48,7 @@ public class Utilisateur implements Serializable, UserDetails {
         
         @Column(nullable = false)
         @Builder.Default
-        private Boolean isOnline = false; // Statut de connexion
+        private Boolean isOnline = false; // Plus mis à jour : présence en mémoire (PresenceService)
         
         @Column(nullable = true)
         private LocalDateTime lastLogin; // Dernière connexion
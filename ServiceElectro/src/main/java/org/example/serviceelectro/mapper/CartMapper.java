@@ -2,10 +2,13 @@ package org.example.serviceelectro.mapper;
 
 import org.example.serviceelectro.dto.CartDTO;
 import org.example.serviceelectro.dto.CartItemDTO;
+import org.example.serviceelectro.dto.CartViewRow;
 import org.example.serviceelectro.entities.Cart;
 import org.example.serviceelectro.entities.CartItem;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,11 +32,62 @@ public class CartMapper {
             dto.setItems(cart.getItems().stream()
                     .map(this::toItemDTO)
                     .collect(Collectors.toList()));
+            applyTotals(dto);
         }
 
         return dto;
     }
 
+    /**
+     * Construit le panier à partir des lignes de CartItemRepository.findCartView (toutes du même panier).
+     */
+    public CartDTO toDTO(Long userId, List<CartViewRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+
+        CartViewRow first = rows.get(0);
+        List<CartItemDTO> items = new ArrayList<>();
+        for (CartViewRow row : rows) {
+            if (row.getItemId() != null) {
+                items.add(CartItemDTO.builder()
+                        .id(row.getItemId())
+                        .publicationId(row.getPublicationId())
+                        .publicationTitle(row.getPublicationTitle())
+                        .publicationDescription(row.getPublicationDescription())
+                        .publicationPrice(row.getPublicationPrice())
+                        .publicationFileUrl(row.getPublicationFileUrl())
+                        .quantity(row.getQuantity())
+                        .createdAt(row.getItemCreatedAt())
+                        .build());
+            }
+        }
+
+        CartDTO dto = CartDTO.builder()
+                .id(first.getCartId())
+                .userId(userId)
+                .items(items)
+                .createdAt(first.getCartCreatedAt())
+                .updatedAt(first.getCartUpdatedAt())
+                .build();
+        applyTotals(dto);
+        return dto;
+    }
+
+    private void applyTotals(CartDTO dto) {
+        int totalQuantity = 0;
+        double totalPrice = 0;
+        for (CartItemDTO item : dto.getItems()) {
+            int quantity = item.getQuantity() != null ? item.getQuantity() : 1;
+            totalQuantity += quantity;
+            if (item.getPublicationPrice() != null) {
+                totalPrice += item.getPublicationPrice() * quantity;
+            }
+        }
+        dto.setTotalQuantity(totalQuantity);
+        dto.setTotalPrice(totalPrice);
+    }
+
     public CartItemDTO toItemDTO(CartItem cartItem) {
         if (cartItem == null) {
             return null;
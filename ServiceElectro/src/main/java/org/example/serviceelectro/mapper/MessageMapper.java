@@ -1,6 +1,7 @@
 package org.example.serviceelectro.mapper;
 
 import org.example.serviceelectro.dto.MessageDTO;
+import org.example.serviceelectro.dto.UserSummary;
 import org.example.serviceelectro.entities.Message;
 import org.example.serviceelectro.entities.Utilisateur;
 import org.springframework.stereotype.Component;
@@ -13,18 +14,7 @@ public class MessageMapper {
             return null;
         }
 
-        MessageDTO dto = new MessageDTO();
-        dto.setId(message.getId());
-        dto.setContent(message.getContent());
-        dto.setIsRead(message.getIsRead());
-        dto.setFileUrl(message.getFileUrl());
-        dto.setFileName(message.getFileName());
-        dto.setFileType(message.getFileType());
-        dto.setLatitude(message.getLatitude());
-        dto.setLongitude(message.getLongitude());
-        dto.setLocationName(message.getLocationName());
-        dto.setCreatedAt(message.getCreatedAt());
-        dto.setUpdatedAt(message.getUpdatedAt());
+        MessageDTO dto = mapFields(message);
 
         if (message.getSender() != null) {
             try {
@@ -55,6 +45,40 @@ public class MessageMapper {
         return dto;
     }
 
+    /**
+     * Variante sans accès aux entités expéditeur/destinataire (simples références, non chargées) :
+     * leurs informations viennent des résumés de UserDirectory.
+     */
+    public MessageDTO toDTO(Message message, UserSummary sender, UserSummary receiver) {
+        if (message == null) {
+            return null;
+        }
+        MessageDTO dto = mapFields(message);
+        dto.setSenderId(sender.getId());
+        dto.setSenderUsername(sender.getDisplayName());
+        dto.setSenderEmail(sender.getEmail());
+        dto.setReceiverId(receiver.getId());
+        dto.setReceiverUsername(receiver.getDisplayName());
+        dto.setReceiverEmail(receiver.getEmail());
+        return dto;
+    }
+
+    private MessageDTO mapFields(Message message) {
+        MessageDTO dto = new MessageDTO();
+        dto.setId(message.getId());
+        dto.setContent(message.getContent());
+        dto.setIsRead(message.getIsRead());
+        dto.setFileUrl(message.getFileUrl());
+        dto.setFileName(message.getFileName());
+        dto.setFileType(message.getFileType());
+        dto.setLatitude(message.getLatitude());
+        dto.setLongitude(message.getLongitude());
+        dto.setLocationName(message.getLocationName());
+        dto.setCreatedAt(message.getCreatedAt());
+        dto.setUpdatedAt(message.getUpdatedAt());
+        return dto;
+    }
+
     public Message toEntity(MessageDTO dto, Utilisateur sender, Utilisateur receiver) {
         if (dto == null) {
             System.out.println("❌ DTO is null");
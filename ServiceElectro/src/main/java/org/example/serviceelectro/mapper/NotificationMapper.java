@@ -19,6 +19,9 @@ public class NotificationMapper {
             dto.setIsRead(notification.getIsRead());
             dto.setType(notification.getType());
             dto.setCreatedAt(notification.getCreatedAt());
+            dto.setUpdatedAt(notification.getUpdatedAt());
+            dto.setSourceKey(notification.getSourceKey());
+            dto.setOccurrences(notification.getOccurrences() != null ? notification.getOccurrences() : 1);
 
             if (notification.getUser() != null) {
                 dto.setUserId(notification.getUser().getId());
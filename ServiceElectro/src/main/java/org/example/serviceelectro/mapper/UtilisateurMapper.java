@@ -2,11 +2,16 @@ package org.example.serviceelectro.mapper;
 
 import org.example.serviceelectro.dto.UtilisateurDTO;
 import org.example.serviceelectro.entities.Utilisateur;
+import org.example.serviceelectro.servicees.PresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UtilisateurMapper {
 
+    @Autowired
+    private PresenceService presenceService;
+
     public UtilisateurDTO toDTO(Utilisateur utilisateur) {
         if (utilisateur == null) {
             return null;
@@ -21,11 +26,16 @@ public class UtilisateurMapper {
                 .profilePhoto(utilisateur.getProfilePhoto())
                 .phone(utilisateur.getPhone())
                 .address(utilisateur.getAddress())
-                .isOnline(utilisateur.getIsOnline())
+                .isOnline(presenceService.isOnline(utilisateur.getId()))
                 .lastLogin(utilisateur.getLastLogin())
                 .build();
     }
 
+    // Copie avec le statut en ligne actuel (résumés gardés en cache par UserDirectory)
+    public UtilisateurDTO withPresence(UtilisateurDTO dto) {
+        return dto.toBuilder().isOnline(presenceService.isOnline(dto.getId())).build();
+    }
+
     public Utilisateur toEntity(UtilisateurDTO dto) {
         if (dto == null) {
             return null;
@@ -0,0 +1,29 @@
+package org.example.serviceelectro.repository;
+
+import org.example.serviceelectro.entities.ArchivedMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedMessageRepository extends JpaRepository<ArchivedMessage, Long> {
+
+    @Query("SELECT m FROM ArchivedMessage m WHERE " +
+            "((m.sender.id = :userId1 AND m.receiver.id = :userId2) OR (m.sender.id = :userId2 AND m.receiver.id = :userId1)) " +
+            "AND m.createdAt < :before ORDER BY m.createdAt DESC, m.id DESC")
+    List<ArchivedMessage> findConversationBefore(@Param("userId1") Long userId1,
+                                                 @Param("userId2") Long userId2,
+                                                 @Param("before") LocalDateTime before,
+                                                 Pageable pageable);
+
+    // Pas de clé étrangère sur l'archive : ses messages sont supprimés avec l'utilisateur
+    @Modifying
+    @Query(value = "DELETE FROM message_archive WHERE sender_id = :userId OR receiver_id = :userId", nativeQuery = true)
+    int deleteByParticipant(@Param("userId") Long userId);
+}
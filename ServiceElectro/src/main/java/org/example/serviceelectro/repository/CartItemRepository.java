@@ -1,7 +1,9 @@
 package org.example.serviceelectro.repository;
 
+import org.example.serviceelectro.dto.CartViewRow;
 import org.example.serviceelectro.entities.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,5 +19,35 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     
     @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.user.id = :userId")
     Long countItemsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Ajout atomique grâce à la clé unique (cart_id, publication_id) : insère la ligne ou incrémente sa quantité.
+     * Retourne 1 si la ligne a été créée, 2 si une ligne existante a été incrémentée (convention MySQL).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cart_item (cart_id, publication_id, quantity, created_at) " +
+            "VALUES (:cartId, :publicationId, :quantity, NOW()) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + :quantity", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Long cartId,
+                       @Param("publicationId") Long publicationId,
+                       @Param("quantity") int quantity);
+
+    // Propriétaire de l'article (utilisateur du panier), sans charger d'entités
+    @Query(value = "SELECT c.user_id FROM cart_item ci JOIN cart c ON ci.cart_id = c.id WHERE ci.id = :cartItemId",
+            nativeQuery = true)
+    Optional<Long> findOwnerId(@Param("cartItemId") Long cartItemId);
+
+    // Suppression limitée aux articles du panier de l'utilisateur : 0 ligne si l'article est absent ou appartient à un autre
+    @Modifying
+    @Query(value = "DELETE ci FROM cart_item ci JOIN cart c ON ci.cart_id = c.id " +
+            "WHERE ci.id = :cartItemId AND c.user_id = :userId", nativeQuery = true)
+    int deleteOwnedItem(@Param("userId") Long userId, @Param("cartItemId") Long cartItemId);
+
+    // Vue panier en une seule requête, sans charger d'entités (ni utilisateur, ni publication complète)
+    @Query("SELECT new org.example.serviceelectro.dto.CartViewRow(c.id, c.createdAt, c.updatedAt, " +
+            "i.id, p.id, p.title, p.description, p.price, p.fileUrl, i.quantity, i.createdAt) " +
+            "FROM Cart c LEFT JOIN c.items i LEFT JOIN i.publication p " +
+            "WHERE c.user.id = :userId ORDER BY i.createdAt, i.id")
+    List<CartViewRow> findCartView(@Param("userId") Long userId);
 }
 
@@ -2,6 +2,9 @@ package org.example.serviceelectro.repository;
 
 import org.example.serviceelectro.entities.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,5 +12,27 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser_Id(Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // Création idempotente : sans effet si le panier existe déjà (clé unique user_id) ou si l'utilisateur n'existe pas
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO cart (user_id, created_at, updated_at) VALUES (:userId, NOW(), NOW())",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    // Lecture verrouillante : voit le panier créé par une transaction concurrente, hors de l'instantané courant
+    @Query(value = "SELECT id FROM cart WHERE user_id = :userId LOCK IN SHARE MODE", nativeQuery = true)
+    Optional<Long> findIdByUserIdLocking(@Param("userId") Long userId);
+
+    // Date de dernière activité du panier (les articles sont modifiés en SQL, sans passer par l'entité Cart)
+    @Modifying
+    @Query(value = "UPDATE cart SET updated_at = NOW() WHERE user_id = :userId", nativeQuery = true)
+    int touchByUserId(@Param("userId") Long userId);
+
+    // Verrou exclusif sur le panier jusqu'à la fin de la transaction (sérialisation entre instances)
+    @Query(value = "SELECT id FROM cart WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockByUserId(@Param("userId") Long userId);
 }
 
@@ -1,9 +1,13 @@
 package org.example.serviceelectro.repository;
 
 import org.example.serviceelectro.entities.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,6 +17,14 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findBySenderIdAndReceiverIdOrderByCreatedAtAsc(Long senderId, Long receiverId);
     List<Message> findByReceiverIdAndIsReadFalse(Long receiverId);
     long countByReceiverIdAndIsReadFalse(Long receiverId);
+
+    @Query("SELECT m FROM Message m WHERE " +
+            "((m.sender.id = :userId1 AND m.receiver.id = :userId2) OR (m.sender.id = :userId2 AND m.receiver.id = :userId1)) " +
+            "AND m.createdAt < :before ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findConversationBefore(@Param("userId1") Long userId1,
+                                         @Param("userId2") Long userId2,
+                                         @Param("before") LocalDateTime before,
+                                         Pageable pageable);
 }
 
 
@@ -1,19 +1,23 @@
 package org.example.serviceelectro.repository;
 
+import org.example.serviceelectro.dto.NotificationDTO;
 import org.example.serviceelectro.entities.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC")
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.publication WHERE n.user.id = :userId ORDER BY n.createdAt DESC")
     List<Notification> findByUser_IdOrderByCreatedAtDesc(@Param("userId") Long userId);
     
-    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isRead = false ORDER BY n.createdAt DESC")
+    @Query("SELECT n FROM Notification n LEFT JOIN FETCH n.publication WHERE n.user.id = :userId AND n.isRead = false ORDER BY n.createdAt DESC")
     List<Notification> findByUser_IdAndIsReadFalseOrderByCreatedAtDesc(@Param("userId") Long userId);
     
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false")
@@ -21,5 +25,46 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     
     @Query("SELECT n FROM Notification n WHERE n.publication IS NOT NULL AND n.publication.id = :publicationId")
     List<Notification> findByPublication_Id(@Param("publicationId") Long publicationId);
+
+    // Première page du tiroir de notifications : projection directe en DTO (seuls l'ID et le titre de la publication)
+    @Query("SELECT new org.example.serviceelectro.dto.NotificationDTO(n.id, n.user.id, n.message, n.isRead, n.type, " +
+            "p.id, p.title, n.sourceKey, COALESCE(n.occurrences, 1), n.createdAt, n.updatedAt) " +
+            "FROM Notification n LEFT JOIN n.publication p " +
+            "WHERE n.user.id = :userId AND (:unreadOnly = false OR n.isRead = false) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationDTO> findFirstPage(@Param("userId") Long userId,
+                                        @Param("unreadOnly") boolean unreadOnly,
+                                        Pageable pageable);
+
+    // Pages suivantes : reprise strictement après le curseur (createdAt, id), via l'index (user_id, created_at, id)
+    @Query("SELECT new org.example.serviceelectro.dto.NotificationDTO(n.id, n.user.id, n.message, n.isRead, n.type, " +
+            "p.id, p.title, n.sourceKey, COALESCE(n.occurrences, 1), n.createdAt, n.updatedAt) " +
+            "FROM Notification n LEFT JOIN n.publication p " +
+            "WHERE n.user.id = :userId AND (:unreadOnly = false OR n.isRead = false) " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationDTO> findPageAfter(@Param("userId") Long userId,
+                                        @Param("unreadOnly") boolean unreadOnly,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    // Notification non lue dans laquelle regrouper de nouveaux événements de la même source
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.user.id = :userId AND n.type = :type " +
+            "AND n.sourceKey = :sourceKey AND n.isRead = false")
+    Long findUnreadIdForCoalescing(@Param("userId") Long userId,
+                                   @Param("type") String type,
+                                   @Param("sourceKey") String sourceKey);
+
+    // created_at n'est pas modifié : la notification garde sa place dans le parcours par curseur (created_at, id) ;
+    // l'heure du dernier événement va dans updated_at.
+    // 0 ligne si la notification a été lue entre-temps : l'appelant crée alors une nouvelle notification
+    @Modifying
+    @Query(value = "UPDATE notification SET occurrences = COALESCE(occurrences, 1) + :count, message = :message, " +
+            "updated_at = :now WHERE id = :id AND is_read = FALSE", nativeQuery = true)
+    int coalesce(@Param("id") Long id,
+                 @Param("count") int count,
+                 @Param("message") String message,
+                 @Param("now") LocalDateTime now);
 }
 
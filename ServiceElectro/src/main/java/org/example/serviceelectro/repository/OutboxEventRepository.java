@@ -0,0 +1,43 @@
+package org.example.serviceelectro.repository;
+
+import org.example.serviceelectro.entities.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Les événements sont lus dans l'ordre d'insertion pour conserver l'ordre par utilisateur
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PENDING' ORDER BY e.id ASC")
+    List<OutboxEvent> findPending(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.status = 'DONE', e.processedAt = :processedAt WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.status = 'DONE', e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markAllProcessed(@Param("ids") List<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+            "e.status = CASE WHEN e.attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END " +
+            "WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
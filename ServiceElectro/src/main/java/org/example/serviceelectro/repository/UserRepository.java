@@ -1,18 +1,38 @@
 package org.example.serviceelectro.repository;
 
+import org.example.serviceelectro.dto.UserSummary;
 import org.example.serviceelectro.entities.Utilisateur;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<Utilisateur, Long> {
     Optional<Utilisateur> findByEmailIgnoreCase(String email);
     Optional<Utilisateur> findByUsername(String username);
-}
 
+    // Résumés sans entité gérée (UserDirectory, CurrentUser)
+    @Query("SELECT new org.example.serviceelectro.dto.UserSummary(u.id, u.email, u.username, u.role) " +
+            "FROM Utilisateur u WHERE LOWER(u.email) = LOWER(:email)")
+    Optional<UserSummary> findSummaryByEmail(@Param("email") String email);
 
+    @Query("SELECT new org.example.serviceelectro.dto.UserSummary(u.id, u.email, u.username, u.role) " +
+            "FROM Utilisateur u WHERE u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
 
+    // Index par rôle : seuls les IDs sont chargés, triés pour garder "le premier admin" stable
+    @Query("SELECT u.id FROM Utilisateur u WHERE u.role = :role ORDER BY u.id")
+    List<Long> findIdsByRole(@Param("role") String role);
 
+    // Rôle enregistré en base, et non celui de l'entité gérée qui peut déjà porter la modification
+    @Query(value = "SELECT role FROM utilisateur WHERE id = :id", nativeQuery = true)
+    Optional<String> findStoredRoleById(@Param("id") Long id);
 
+    // Utilisateurs dont le rôle est différent (les rôles NULL sont inclus, comme avant)
+    @Query("SELECT u FROM Utilisateur u WHERE u.role IS NULL OR u.role <> :role ORDER BY u.id")
+    List<Utilisateur> findByRoleNot(@Param("role") String role);
+}
@@ -0,0 +1,151 @@
+package org.example.serviceelectro.servicees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limitation de débit des endpoints d'authentification par seaux à jetons (token buckets) :
+ * un seau par adresse IP (AuthRateLimitFilter, devant /api/auth/**) et un par compte (email, dans AuthService.login).
+ * Le renouvellement de token (/api/auth/refresh, sans BCrypt, appelé régulièrement par chaque client connecté)
+ * a ses propres seaux par IP, plus larges, pour ne pas consommer ceux du login.
+ * Métrique : auth.rate_limited (tag scope = ip | refresh | account).
+ */
+@Service
+public class AuthRateLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${auth.rate-limit.ip.refill-per-minute:20}")
+    private int ipRefillPerMinute;
+
+    @Value("${auth.rate-limit.refresh.capacity:120}")
+    private int refreshCapacity;
+
+    @Value("${auth.rate-limit.refresh.refill-per-minute:120}")
+    private int refreshRefillPerMinute;
+
+    @Value("${auth.rate-limit.account.capacity:5}")
+    private int accountCapacity;
+
+    @Value("${auth.rate-limit.account.refill-per-minute:5}")
+    private int accountRefillPerMinute;
+
+    @Value("${auth.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> refreshBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Consomme un jeton pour l'adresse IP. Retourne 0 si la requête est acceptée,
+     * sinon le nombre de secondes à attendre (en-tête Retry-After).
+     */
+    public long acquireForIp(String ip) {
+        if (!enabled || ip == null) {
+            return 0;
+        }
+        long retryAfter = acquire(ipBuckets, ip, ipCapacity, ipRefillPerMinute);
+        if (retryAfter > 0) {
+            meterRegistry.counter("auth.rate_limited", "scope", "ip").increment();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Comme {@link #acquireForIp(String)}, pour /api/auth/refresh.
+     */
+    public long acquireRefreshForIp(String ip) {
+        if (!enabled || ip == null) {
+            return 0;
+        }
+        long retryAfter = acquire(refreshBuckets, ip, refreshCapacity, refreshRefillPerMinute);
+        if (retryAfter > 0) {
+            meterRegistry.counter("auth.rate_limited", "scope", "refresh").increment();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Consomme un jeton pour le compte ; 429 si les tentatives sur ce compte sont trop rapprochées.
+     */
+    public void checkAccount(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        long retryAfter = acquire(accountBuckets, email.toLowerCase().trim(), accountCapacity, accountRefillPerMinute);
+        if (retryAfter > 0) {
+            meterRegistry.counter("auth.rate_limited", "scope", "account").increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Trop de tentatives de connexion pour ce compte, réessayez dans " + retryAfter + " seconde(s)");
+        }
+    }
+
+    // Oubli des seaux pleins (inactifs depuis au moins un remplissage complet)
+    @Scheduled(fixedDelayString = "${auth.rate-limit.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        long now = System.nanoTime();
+        ipBuckets.values().removeIf(bucket -> bucket.isFullAt(now));
+        refreshBuckets.values().removeIf(bucket -> bucket.isFullAt(now));
+        accountBuckets.values().removeIf(bucket -> bucket.isFullAt(now));
+    }
+
+    private long acquire(Map<String, TokenBucket> buckets, String key, int capacity, int refillPerMinute) {
+        if (buckets.size() >= maxKeys && !buckets.containsKey(key)) {
+            cleanup();
+        }
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerMinute));
+        return bucket.tryConsume(System.nanoTime());
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        // 0 si un jeton a été consommé, sinon secondes avant le prochain jeton
+        synchronized long tryConsume(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            double missingNanos = (1 - tokens) / tokensPerNano;
+            return Math.max(1, (long) Math.ceil(missingNanos / TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        synchronized boolean isFullAt(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
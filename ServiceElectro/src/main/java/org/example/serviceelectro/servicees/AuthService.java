@@ -5,7 +5,6 @@ import org.example.serviceelectro.dto.LoginRequest;
 import org.example.serviceelectro.dto.LoginResponse;
 import org.example.serviceelectro.entities.Utilisateur;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -17,17 +16,35 @@ public class AuthService {
     private UserImpl userService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private LoginActivityWriter loginActivityWriter;
+
+    @Autowired
+    private PresenceService presenceService;
+
     public LoginResponse login(LoginRequest loginRequest) {
         // Normalize email to lowercase for case-insensitive lookup
         String email = loginRequest.getEmail().toLowerCase().trim();
         
         System.out.println("=== LOGIN ATTEMPT ===");
         System.out.println("Email: " + email);
+
+        // Tentatives par compte limitées avant toute requête ou calcul BCrypt
+        authRateLimiter.checkAccount(email);
         
         Optional<Utilisateur> utilisateurOpt = userService.findByEmail(email);
         
@@ -42,7 +59,7 @@ public class AuthService {
         
         // Check if password matches
         boolean passwordMatches = utilisateur.getPassword() != null && 
-            passwordEncoder.matches(loginRequest.getPassword(), utilisateur.getPassword());
+            passwordHashingService.matches(loginRequest.getPassword(), utilisateur.getPassword());
         
         System.out.println("Password matches: " + passwordMatches);
         
@@ -53,8 +70,9 @@ public class AuthService {
         
         System.out.println("✅ Login successful for: " + email);
         
-        // Mettre à jour le statut de connexion
-        userService.setUserOnline(utilisateur.getId(), true);
+        // Dernière connexion écrite en arrière-plan ; le statut en ligne reste en mémoire
+        loginActivityWriter.recordLogin(utilisateur.getId());
+        presenceService.heartbeat(utilisateur.getId());
 
         String role = utilisateur.getRole() != null ? utilisateur.getRole() : "USER";
         System.out.println("🔑 Generating token for email: " + utilisateur.getEmail() + ", role: " + role);
@@ -77,20 +95,9 @@ public class AuthService {
         System.out.println("✅ Token generated successfully. Length: " + token.length());
         System.out.println("✅ Token preview: " + (token.length() > 20 ? token.substring(0, 20) + "..." : token));
 
-        // Get the actual username field value (since getUsername() is overridden to return email)
-        // We'll use reflection to access the private username field
-        String actualUsername = email; // Default to email
-        try {
-            java.lang.reflect.Field usernameField = Utilisateur.class.getDeclaredField("username");
-            usernameField.setAccessible(true);
-            Object usernameValue = usernameField.get(utilisateur);
-            if (usernameValue != null && !usernameValue.toString().trim().isEmpty()) {
-                actualUsername = usernameValue.toString();
-            }
-        } catch (Exception e) {
-            // If reflection fails, use email as username
-            actualUsername = email;
-        }
+        // getUsername() retourne l'email (UserDetails) : le nom d'utilisateur réel vient de getRealUsername()
+        String realUsername = utilisateur.getRealUsername();
+        String actualUsername = realUsername != null && !realUsername.trim().isEmpty() ? realUsername : email;
 
         LoginResponse response = LoginResponse.builder()
                 .token(token)
@@ -98,6 +105,8 @@ public class AuthService {
                 .role(role)
                 .userId(utilisateur.getId())
                 .username(actualUsername)
+                .refreshToken(refreshTokenService.issue(utilisateur.getId()))
+                .expiresIn(jwtUtil.getExpirationMillis() / 1000)
                 .build();
         
         System.out.println("📦 LoginResponse created:");
@@ -109,5 +118,39 @@ public class AuthService {
         
         return response;
     }
-}
 
+    /**
+     * Nouveau token d'accès et nouveau refresh token (l'ancien est consommé).
+     * Le rôle est relu en base : un changement de rôle est pris en compte au prochain renouvellement.
+     */
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        Utilisateur utilisateur = userService.findById(rotation.userId())
+                .orElseThrow(() -> new IllegalArgumentException("Refresh token invalide"));
+
+        String role = utilisateur.getRole() != null ? utilisateur.getRole() : "USER";
+        String realUsername = utilisateur.getRealUsername();
+
+        return LoginResponse.builder()
+                .token(jwtUtil.generateToken(utilisateur.getEmail(), role))
+                .email(utilisateur.getEmail())
+                .role(role)
+                .userId(utilisateur.getId())
+                .username(realUsername != null && !realUsername.trim().isEmpty() ? realUsername : utilisateur.getEmail())
+                .refreshToken(rotation.refreshToken())
+                .expiresIn(jwtUtil.getExpirationMillis() / 1000)
+                .build();
+    }
+
+    /**
+     * Révoque le token d'accès présenté (effectif sur toutes les instances en quelques secondes)
+     * et la famille du refresh token.
+     */
+    public void revokeTokens(String accessToken, String refreshToken) {
+        JwtUtil.TokenClaims claims = jwtUtil.parseAndValidate(accessToken);
+        if (claims != null) {
+            tokenRevocationService.revoke(claims.jti(), claims.expiresAtMillis());
+        }
+        refreshTokenService.revoke(refreshToken);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.serviceelectro.servicees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Supprime les paniers non modifiés depuis cart.cleanup.abandoned-days jours (colonne updated_at,
+ * mise à jour à chaque modification du panier) avec leurs articles.
+ * Suppression par petits lots d'IDs, chaque lot dans sa propre transaction ; la condition sur updated_at
+ * est répétée dans les DELETE pour épargner un panier modifié entre-temps.
+ * Métriques : carts.cleanup.deleted (tag table) et carts.cleanup.duration.
+ */
+@Service
+public class CartCleanupJob {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Value("${cart.cleanup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.cleanup.abandoned-days:60}")
+    private int abandonedDays;
+
+    @Value("${cart.cleanup.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cart.cleanup.pause-ms:50}")
+    private long pauseMs;
+
+    @Scheduled(cron = "${cart.cleanup.cron:0 15 4 * * *}")
+    public void purgeAbandonedCarts() {
+        if (!enabled || abandonedDays <= 0) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(abandonedDays));
+        long carts = 0;
+        long items = 0;
+        try {
+            long lastId = 0;
+            while (true) {
+                List<long[]> batch = jdbcTemplate.query(
+                        "SELECT id, user_id FROM cart WHERE updated_at < ? AND id > ? ORDER BY id LIMIT ?",
+                        (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getLong("user_id")},
+                        cutoff, lastId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1)[0];
+
+                long[] deleted = deleteBatch(batch, cutoff);
+                items += deleted[1];
+                carts += deleted[0];
+                meterRegistry.counter("carts.cleanup.deleted", "table", "cart_item").increment(deleted[1]);
+                meterRegistry.counter("carts.cleanup.deleted", "table", "cart").increment(deleted[0]);
+
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("❌ Erreur lors du nettoyage des paniers abandonnés: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            sample.stop(meterRegistry.timer("carts.cleanup.duration"));
+        }
+
+        if (carts > 0) {
+            System.out.println("🧹 " + carts + " panier(s) abandonné(s) supprimé(s), " + items + " article(s)");
+        }
+    }
+
+    // [paniers supprimés, articles supprimés]
+    private long[] deleteBatch(List<long[]> batch, Timestamp cutoff) {
+        String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+        Object[] params = new Object[batch.size() + 1];
+        for (int i = 0; i < batch.size(); i++) {
+            params[i] = batch.get(i)[0];
+        }
+        params[batch.size()] = cutoff;
+
+        long[] deleted = transactionTemplate.execute(status -> {
+            int itemCount = jdbcTemplate.update("DELETE ci FROM cart_item ci JOIN cart c ON ci.cart_id = c.id " +
+                    "WHERE c.id IN (" + placeholders + ") AND c.updated_at < ?", params);
+            int cartCount = jdbcTemplate.update("DELETE FROM cart WHERE id IN (" + placeholders + ") AND updated_at < ?",
+                    params);
+            return new long[]{cartCount, itemCount};
+        });
+        for (long[] cart : batch) {
+            unreadCounterStore.evictAfterCommit(UnreadCounterStore.Counter.CART_ITEMS, cart[1]);
+        }
+        return deleted != null ? deleted : new long[]{0, 0};
+    }
+}
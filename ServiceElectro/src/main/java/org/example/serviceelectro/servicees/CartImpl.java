@@ -1,20 +1,27 @@
 package org.example.serviceelectro.servicees;
 
+import org.example.serviceelectro.dto.CartDTO;
+import org.example.serviceelectro.dto.CartViewRow;
 import org.example.serviceelectro.entities.Cart;
 import org.example.serviceelectro.entities.CartItem;
-import org.example.serviceelectro.entities.Publication;
-import org.example.serviceelectro.entities.Utilisateur;
+import org.example.serviceelectro.mapper.CartMapper;
 import org.example.serviceelectro.repository.CartItemRepository;
 import org.example.serviceelectro.repository.CartRepository;
-import org.example.serviceelectro.repository.PublicationRepository;
 import org.example.serviceelectro.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
@@ -30,66 +37,136 @@ public class CartImpl implements ICart {
     private UserRepository userRepository;
 
     @Autowired
-    private PublicationRepository publicationRepository;
+    private UserDirectory userDirectory;
 
-    @PersistenceContext
-    private EntityManager entityManager;
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    @Autowired
+    private UserLockStripes userLockStripes;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CartWriteBehindBuffer cartWriteBehindBuffer;
+
+    // Verrou de ligne sur le panier en plus du verrou mémoire, pour plusieurs instances du serveur
+    @Value("${cart.lock.database:false}")
+    private boolean databaseLock;
 
     @Override
     public Cart getOrCreateCart(Long userId) {
         Optional<Cart> cartOpt = cartRepository.findByUser_Id(userId);
         
         if (cartOpt.isPresent()) {
-            Cart cart = cartOpt.get();
-            // Forcer le rechargement depuis la base de données pour éviter le cache
-            entityManager.refresh(cart);
-            return cart;
+            return cartOpt.get();
         } else {
-            Optional<Utilisateur> userOpt = userRepository.findById(userId);
-            if (userOpt.isEmpty()) {
+            if (userDirectory.getSummaryById(userId).isEmpty()) {
                 throw new IllegalArgumentException("Utilisateur non trouvé");
             }
             
+            // Simple référence : seul l'ID est nécessaire pour la clé étrangère
             Cart cart = Cart.builder()
-                    .user(userOpt.get())
+                    .user(userRepository.getReferenceById(userId))
                     .build();
             return cartRepository.save(cart);
         }
     }
 
+    /**
+     * Panier affiché par CartController : une seule requête de projection, sans entités gérées.
+     * Le panier n'est créé (écriture) qu'à la première consultation.
+     */
     @Override
-    public CartItem addItemToCart(Long userId, Long publicationId, Integer quantity) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("La quantité doit être supérieure à 0");
+    public CartDTO getCartView(Long userId) {
+        List<CartViewRow> rows = cartItemRepository.findCartView(userId);
+        if (rows.isEmpty()) {
+            ensureCartId(userId);
+            rows = cartItemRepository.findCartView(userId);
         }
+        // Quantités modifiées en mémoire (mode write-behind) pas encore écrites en base
+        Map<Long, Integer> pendingQuantities = cartWriteBehindBuffer.pendingFor(userId);
+        if (!pendingQuantities.isEmpty()) {
+            rows.forEach(row -> {
+                Integer quantity = pendingQuantities.get(row.getItemId());
+                if (quantity != null) {
+                    row.setQuantity(quantity);
+                }
+            });
+        }
+        return cartMapper.toDTO(userId, rows);
+    }
 
-        Cart cart = getOrCreateCart(userId);
-        
-        Optional<Publication> publicationOpt = publicationRepository.findById(publicationId);
-        if (publicationOpt.isEmpty()) {
+    /**
+     * Une requête pour l'ID du panier (créé au besoin) puis un seul INSERT ... ON DUPLICATE KEY UPDATE :
+     * deux ajouts simultanés du même article ne peuvent plus créer de doublon.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void addItemToCart(Long userId, Long publicationId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être supérieure à 0");
+        }
+        if (publicationId == null) {
             throw new IllegalArgumentException("Publication non trouvée");
         }
 
-        // Vérifier si l'article existe déjà dans le panier
-        Optional<CartItem> existingItemOpt = cartItemRepository.findByCart_IdAndPublication_Id(cart.getId(), publicationId);
-        
-        if (existingItemOpt.isPresent()) {
-            // Mettre à jour la quantité
-            CartItem existingItem = existingItemOpt.get();
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-            return cartItemRepository.save(existingItem);
-        } else {
-            // Créer un nouvel article
-            CartItem cartItem = CartItem.builder()
-                    .cart(cart)
-                    .publication(publicationOpt.get())
-                    .quantity(quantity)
-                    .build();
-            return cartItemRepository.save(cartItem);
+        mutate(userId, () -> {
+            Long cartId = ensureCartId(userId);
+            int affected;
+            try {
+                affected = cartItemRepository.upsertQuantity(cartId, publicationId, quantity);
+            } catch (DataIntegrityViolationException e) {
+                // Clé étrangère publication_id : la publication n'existe pas
+                throw new IllegalArgumentException("Publication non trouvée");
+            }
+            if (affected == 1) {
+                unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.CART_ITEMS, userId, 1);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Exécute une modification du panier sous le verrou de l'utilisateur, dans sa propre transaction :
+     * le verrou est relâché après le commit, les onglets concurrents d'un même utilisateur sont donc
+     * sérialisés sans bloquer les autres utilisateurs.
+     */
+    private <T> T mutate(Long userId, Supplier<T> body) {
+        return userLockStripes.callLocked(userId, () -> {
+            cartWriteBehindBuffer.flushIfPending(userId);
+            return transactionTemplate.execute(status -> {
+                if (databaseLock) {
+                    cartRepository.lockByUserId(userId);
+                }
+                T result = body.get();
+                cartRepository.touchByUserId(userId);
+                return result;
+            });
+        });
+    }
+
+    // ID du panier de l'utilisateur, créé de façon idempotente s'il n'existe pas encore
+    private Long ensureCartId(Long userId) {
+        Optional<Long> cartId = cartRepository.findIdByUserId(userId);
+        if (cartId.isPresent()) {
+            return cartId.get();
         }
+        cartRepository.insertIfAbsent(userId);
+        return cartRepository.findIdByUserIdLocking(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
     }
 
+    /**
+     * Un seul DELETE filtré sur le propriétaire du panier. Le nombre de lignes supprimées suffit
+     * dans le cas normal ; l'existence de l'article n'est vérifiée que pour distinguer 404 et 403.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeItemFromCart(Long userId, Long cartItemId) {
         if (userId == null) {
             throw new IllegalArgumentException("L'ID utilisateur ne peut pas être null");
@@ -98,76 +175,77 @@ public class CartImpl implements ICart {
         if (cartItemId == null) {
             throw new IllegalArgumentException("L'ID de l'article du panier ne peut pas être null");
         }
-        
-        Optional<CartItem> cartItemOpt = cartItemRepository.findById(cartItemId);
-        if (cartItemOpt.isEmpty()) {
-            throw new IllegalArgumentException("Article du panier non trouvé avec l'ID: " + cartItemId);
-        }
-
-        CartItem cartItem = cartItemOpt.get();
-        
-        if (cartItem.getCart() == null || cartItem.getCart().getUser() == null) {
-            throw new IllegalStateException("L'article du panier n'est pas associé à un panier valide");
-        }
-        
-        if (!cartItem.getCart().getUser().getId().equals(userId)) {
-            throw new IllegalArgumentException("Vous n'êtes pas autorisé à supprimer cet article. L'article appartient à un autre utilisateur.");
-        }
 
-        try {
-            // Retirer l'item de la liste du panier avant de le supprimer
-            Cart cart = cartItem.getCart();
-            if (cart != null && cart.getItems() != null) {
-                cart.getItems().remove(cartItem);
-                cartRepository.save(cart);
-                entityManager.flush();
-            }
-            
-            // Supprimer l'item directement par ID pour éviter les problèmes de cache
-            cartItemRepository.deleteById(cartItemId);
-            entityManager.flush(); // Forcer la synchronisation immédiate avec la base de données
-            entityManager.clear(); // Vider le cache pour forcer le rechargement
-            
-            // Vérifier que l'item est bien supprimé
-            Optional<CartItem> verifyOpt = cartItemRepository.findById(cartItemId);
-            if (verifyOpt.isPresent()) {
-                throw new RuntimeException("L'article n'a pas été supprimé de la base de données");
+        mutate(userId, () -> {
+            int deleted = cartItemRepository.deleteOwnedItem(userId, cartItemId);
+            if (deleted == 0) {
+                if (cartItemRepository.existsById(cartItemId)) {
+                    throw new AccessDeniedException("Vous n'êtes pas autorisé à supprimer cet article. L'article appartient à un autre utilisateur.");
+                }
+                throw new NoSuchElementException("Article du panier non trouvé avec l'ID: " + cartItemId);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Erreur lors de la suppression de l'article du panier: " + e.getMessage(), e);
-        }
+            unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.CART_ITEMS, userId, -1);
+            return null;
+        });
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void updateItemQuantity(Long userId, Long cartItemId, Integer quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("La quantité doit être supérieure à 0");
         }
 
-        Optional<CartItem> cartItemOpt = cartItemRepository.findById(cartItemId);
-        if (cartItemOpt.isEmpty()) {
-            throw new IllegalArgumentException("Article du panier non trouvé");
+        if (cartWriteBehindBuffer.isEnabled()) {
+            // Mode write-behind : la propriété n'est vérifiée en base qu'au premier changement depuis la dernière écriture
+            userLockStripes.runLocked(userId, () -> {
+                if (!cartWriteBehindBuffer.isPending(userId, cartItemId)) {
+                    Long ownerId = cartItemRepository.findOwnerId(cartItemId)
+                            .orElseThrow(() -> new IllegalArgumentException("Article du panier non trouvé"));
+                    if (!ownerId.equals(userId)) {
+                        throw new IllegalArgumentException("Vous n'êtes pas autorisé à modifier cet article");
+                    }
+                }
+                cartWriteBehindBuffer.recordQuantity(userId, cartItemId, quantity);
+            });
+            return;
         }
 
-        CartItem cartItem = cartItemOpt.get();
-        if (!cartItem.getCart().getUser().getId().equals(userId)) {
-            throw new IllegalArgumentException("Vous n'êtes pas autorisé à modifier cet article");
-        }
+        mutate(userId, () -> {
+            Optional<CartItem> cartItemOpt = cartItemRepository.findById(cartItemId);
+            if (cartItemOpt.isEmpty()) {
+                throw new IllegalArgumentException("Article du panier non trouvé");
+            }
+
+            CartItem cartItem = cartItemOpt.get();
+            if (!cartItem.getCart().getUser().getId().equals(userId)) {
+                throw new IllegalArgumentException("Vous n'êtes pas autorisé à modifier cet article");
+            }
 
-        cartItem.setQuantity(quantity);
-        cartItemRepository.save(cartItem);
+            cartItem.setQuantity(quantity);
+            return cartItemRepository.save(cartItem);
+        });
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void clearCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        cart.getItems().clear();
-        cartRepository.save(cart);
+        mutate(userId, () -> {
+            Cart cart = getOrCreateCart(userId);
+            unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.CART_ITEMS, userId, -cart.getItems().size());
+            cart.getItems().clear();
+            return cartRepository.save(cart);
+        });
     }
 
+    // Servi depuis UnreadCounterStore : pas de transaction ni de requête SQL pour les polls de badge
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Long getCartItemCount(Long userId) {
-        return cartItemRepository.countItemsByUserId(userId);
+        return unreadCounterStore.get(UnreadCounterStore.Counter.CART_ITEMS, userId, () -> {
+            Long count = cartItemRepository.countItemsByUserId(userId);
+            return count != null ? count : 0L;
+        });
     }
 }
 
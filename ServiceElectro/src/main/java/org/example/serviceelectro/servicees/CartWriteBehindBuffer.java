@@ -0,0 +1,270 @@
+package org.example.serviceelectro.servicees;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Mode write-behind du panier (cart.write-behind.enabled) : les changements de quantité sont gardés
+ * en mémoire et écrits en base par lots toutes les quelques secondes, à la déconnexion et à l'arrêt.
+ * Chaque changement est d'abord ajouté à un journal sur disque (segments cart-journal/segment-N.log),
+ * rejoué au démarrage après un arrêt brutal. Un segment n'est supprimé qu'une fois son contenu en base.
+ */
+@Service
+public class CartWriteBehindBuffer {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.write-behind.journal-dir:./data/cart-journal}")
+    private String journalDir;
+
+    // fsync à chaque écriture : survit aussi à une coupure de courant, au prix de la latence disque
+    @Value("${cart.write-behind.fsync:false}")
+    private boolean fsync;
+
+    // Quantités en attente : utilisateur -> (article -> quantité). Protégé par this.
+    private Map<Long, Map<Long, Integer>> pending = new HashMap<>();
+    private FileChannel journal;
+    private long segment;
+
+    // Une seule écriture en base à la fois : un segment n'est jamais supprimé avant que son contenu soit écrit
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        List<Long> segments = listSegments();
+        recover(segments);
+        synchronized (this) {
+            segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+            journal = openSegment(segment);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enregistre la nouvelle quantité (journal puis mémoire). La propriété de l'article doit déjà être vérifiée.
+     */
+    public synchronized void recordQuantity(Long userId, Long cartItemId, int quantity) {
+        String line = userId + " " + cartItemId + " " + quantity + "\n";
+        try {
+            journal.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du journal du panier impossible", e);
+        }
+        pending.computeIfAbsent(userId, id -> new HashMap<>()).put(cartItemId, quantity);
+    }
+
+    public synchronized boolean isPending(Long userId, Long cartItemId) {
+        Map<Long, Integer> items = pending.get(userId);
+        return items != null && items.containsKey(cartItemId);
+    }
+
+    // Quantités non encore écrites, à superposer à la lecture du panier
+    public synchronized Map<Long, Integer> pendingFor(Long userId) {
+        Map<Long, Integer> items = pending.get(userId);
+        return items == null ? Map.of() : new HashMap<>(items);
+    }
+
+    /**
+     * À appeler avant toute autre modification du panier de l'utilisateur (ajout, suppression, vidage, déconnexion) :
+     * ses quantités en attente ne doivent pas écraser ou être rejouées après cette modification.
+     */
+    public void flushIfPending(Long userId) {
+        boolean hasPending;
+        synchronized (this) {
+            hasPending = pending.containsKey(userId);
+        }
+        if (hasPending) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:3000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            try {
+                flush();
+            } catch (Exception e) {
+                System.err.println("❌ Erreur lors de l'écriture différée du panier: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Écrit toutes les quantités en attente en un lot, puis supprime les segments de journal correspondants.
+     * En cas d'échec, les quantités sont remises en attente (sauf si une valeur plus récente existe).
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Map<Long, Integer>> snapshot;
+            long lastSegment;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                snapshot = pending;
+                pending = new HashMap<>();
+                lastSegment = segment;
+                rotate();
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            snapshot.values().forEach(items -> items.forEach((itemId, quantity) -> updates.add(new Object[]{quantity, itemId})));
+            try {
+                jdbcTemplate.batchUpdate("UPDATE cart_item SET quantity = ? WHERE id = ?", updates);
+                // Activité du panier, utilisée par CartCleanupJob
+                jdbcTemplate.batchUpdate("UPDATE cart SET updated_at = NOW() WHERE user_id = ?",
+                        snapshot.keySet().stream().map(userId -> new Object[]{userId}).toList());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    snapshot.forEach((userId, items) -> items.forEach((itemId, quantity) ->
+                            pending.computeIfAbsent(userId, id -> new HashMap<>()).putIfAbsent(itemId, quantity)));
+                }
+                throw e;
+            }
+            deleteSegmentsUpTo(lastSegment);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            // Le journal reste sur disque : il sera rejoué au prochain démarrage
+            System.err.println("❌ Écriture du panier à l'arrêt impossible, journal conservé: " + e.getMessage());
+        }
+        synchronized (this) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                // Fermeture à l'arrêt
+            }
+        }
+    }
+
+    // Rejoue les segments laissés par une exécution précédente (dernière valeur de chaque article)
+    private void recover(List<Long> segments) throws IOException {
+        if (segments.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<Long, Integer>> recovered = new HashMap<>();
+        for (Long seq : segments) {
+            for (String line : Files.readAllLines(segmentPath(seq), StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length != 3) {
+                    continue; // Dernière ligne tronquée par un arrêt brutal
+                }
+                try {
+                    recovered.computeIfAbsent(Long.parseLong(parts[0]), id -> new LinkedHashMap<>())
+                            .put(Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+                } catch (NumberFormatException e) {
+                    // Ligne corrompue ignorée
+                }
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        recovered.values().forEach(items -> items.forEach((itemId, quantity) -> updates.add(new Object[]{quantity, itemId})));
+        try {
+            jdbcTemplate.batchUpdate("UPDATE cart_item SET quantity = ? WHERE id = ?", updates);
+            deleteSegmentsUpTo(segments.get(segments.size() - 1));
+            System.out.println("🛒 Journal du panier rejoué: " + updates.size() + " quantité(s) restaurée(s)");
+        } catch (RuntimeException e) {
+            // Base indisponible : les quantités restent en attente, les segments seront supprimés au prochain lot réussi
+            pending = recovered;
+            System.err.println("⚠️ Rejeu du journal du panier reporté: " + e.getMessage());
+        }
+    }
+
+    private void rotate() {
+        try {
+            journal.close();
+            segment++;
+            journal = openSegment(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rotation du journal du panier impossible", e);
+        }
+    }
+
+    private FileChannel openSegment(long seq) throws IOException {
+        return FileChannel.open(segmentPath(seq), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void deleteSegmentsUpTo(long lastSegment) {
+        for (Long seq : listSegments()) {
+            if (seq <= lastSegment) {
+                try {
+                    Files.deleteIfExists(segmentPath(seq));
+                } catch (IOException e) {
+                    System.err.println("⚠️ Suppression du segment de journal " + seq + " impossible: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<Long> listSegments() {
+        try (Stream<Path> files = Files.list(Paths.get(journalDir))) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du journal du panier impossible", e);
+        }
+    }
+
+    private Path segmentPath(long seq) {
+        return Paths.get(journalDir, SEGMENT_PREFIX + seq + SEGMENT_SUFFIX);
+    }
+}
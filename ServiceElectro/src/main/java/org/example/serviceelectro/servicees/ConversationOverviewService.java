@@ -0,0 +1,97 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.dto.ConversationSummaryDTO;
+import org.example.serviceelectro.dto.PagedResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vue d'ensemble des conversations d'un utilisateur (l'admin) calculée par agrégation SQL :
+ * une ligne par interlocuteur avec la date du dernier message, le nombre de messages
+ * et le nombre de messages non lus. Les conversations archivées sont incluses.
+ */
+@Service
+public class ConversationOverviewService {
+
+    // Une ligne par message impliquant l'utilisateur, avec l'interlocuteur déjà résolu.
+    // Deux branches (envoyés / reçus) plutôt qu'un OR pour que chacune utilise son index.
+    private static final String PARTICIPATIONS =
+            "SELECT receiver_id AS counterpart_id, created_at, 0 AS unread FROM message WHERE sender_id = ? " +
+            "UNION ALL " +
+            "SELECT sender_id, created_at, CASE WHEN is_read = FALSE THEN 1 ELSE 0 END FROM message " +
+            "WHERE receiver_id = ? AND sender_id <> ? " +
+            "UNION ALL " +
+            "SELECT receiver_id, created_at, 0 FROM message_archive WHERE sender_id = ? " +
+            "UNION ALL " +
+            "SELECT sender_id, created_at, CASE WHEN is_read = FALSE THEN 1 ELSE 0 END FROM message_archive " +
+            "WHERE receiver_id = ? AND sender_id <> ?";
+
+    private static final String CONVERSATIONS =
+            "SELECT p.counterpart_id, MAX(p.created_at) AS last_message_at, COUNT(*) AS message_count, " +
+            "SUM(p.unread) AS unread_count FROM (" + PARTICIPATIONS + ") p GROUP BY p.counterpart_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param counterpartId filtre optionnel sur un interlocuteur précis
+     * @param search        filtre optionnel sur le nom ou l'email de l'interlocuteur
+     * @param oldestFirst   tri par activité la plus ancienne au lieu de la plus récente
+     */
+    public PagedResponse<ConversationSummaryDTO> getConversationSummaries(Long userId, Long counterpartId, String search,
+                                                                          boolean oldestFirst, int page, int size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("L'ID de l'utilisateur est requis");
+        }
+
+        StringBuilder from = new StringBuilder(" FROM (" + CONVERSATIONS + ") c JOIN utilisateur u ON u.id = c.counterpart_id WHERE 1 = 1");
+        List<Object> params = new ArrayList<>(List.of(userId, userId, userId, userId, userId, userId));
+        if (counterpartId != null) {
+            from.append(" AND c.counterpart_id = ?");
+            params.add(counterpartId);
+        }
+        if (search != null && !search.trim().isEmpty()) {
+            String pattern = "%" + search.trim().toLowerCase() + "%";
+            from.append(" AND (LOWER(u.username) LIKE ? OR LOWER(u.email) LIKE ?)");
+            params.add(pattern);
+            params.add(pattern);
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*)" + from, Long.class, params.toArray());
+        long totalElements = total != null ? total : 0;
+
+        List<ConversationSummaryDTO> content = List.of();
+        if (totalElements > (long) page * size) {
+            String direction = oldestFirst ? "ASC" : "DESC";
+            String sql = "SELECT c.counterpart_id, u.username, u.email, c.last_message_at, c.message_count, c.unread_count" +
+                    from + " ORDER BY c.last_message_at " + direction + ", c.counterpart_id " + direction +
+                    " LIMIT ? OFFSET ?";
+            params.add(size);
+            params.add((long) page * size);
+            content = jdbcTemplate.query(sql, (rs, rowNum) -> {
+                Timestamp lastMessageAt = rs.getTimestamp("last_message_at");
+                return ConversationSummaryDTO.builder()
+                        .userId(rs.getLong("counterpart_id"))
+                        .username(rs.getString("username"))
+                        .email(rs.getString("email"))
+                        .lastMessageAt(lastMessageAt != null ? lastMessageAt.toLocalDateTime() : null)
+                        .messageCount(rs.getLong("message_count"))
+                        .unreadCount(rs.getLong("unread_count"))
+                        .build();
+            }, params.toArray());
+        }
+
+        return PagedResponse.<ConversationSummaryDTO>builder()
+                .content(content)
+                .page(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages((int) ((totalElements + size - 1) / size))
+                .build();
+    }
+}
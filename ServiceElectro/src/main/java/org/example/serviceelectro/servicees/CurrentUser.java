@@ -0,0 +1,50 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.dto.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.Optional;
+
+/**
+ * Utilisateur appelant, résolu une seule fois par requête à partir du sujet du JWT (email)
+ * via le cache de résumés de UserDirectory : aucune entité Utilisateur n'est chargée.
+ */
+@Component
+@RequestScope
+public class CurrentUser {
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    private boolean resolved;
+    private UserSummary summary;
+
+    public Optional<UserSummary> get() {
+        if (!resolved) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                summary = userDirectory.getSummaryByEmail(authentication.getName()).orElse(null);
+            }
+            resolved = true;
+        }
+        return Optional.ofNullable(summary);
+    }
+
+    public Optional<Long> getId() {
+        return get().map(UserSummary::getId);
+    }
+
+    public boolean isAuthenticated() {
+        return get().isPresent();
+    }
+
+    public boolean isAdmin() {
+        return get().map(user -> "ADMIN".equals(user.getRole())).orElse(false);
+    }
+}
@@ -1,13 +1,18 @@
 package org.example.serviceelectro.servicees;
 
+import org.example.serviceelectro.dto.CursorPage;
+import org.example.serviceelectro.dto.NotificationDTO;
 import org.example.serviceelectro.entities.Notification;
 
 import java.util.List;
 
 public interface INotification {
     Notification createNotification(Long userId, String message, String type, Long publicationId);
+    Notification createOrCoalesceNotification(Long userId, String message, String type, Long publicationId,
+                                              String sourceKey, int occurrences);
     List<Notification> getUserNotifications(Long userId);
     List<Notification> getUnreadNotifications(Long userId);
+    CursorPage<NotificationDTO> getNotificationPage(Long userId, String cursor, int size, boolean unreadOnly);
     Long getUnreadCount(Long userId);
     Notification markAsRead(Long notificationId);
     void markAllAsRead(Long userId);
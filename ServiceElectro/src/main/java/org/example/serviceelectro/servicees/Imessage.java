@@ -2,6 +2,7 @@ package org.example.serviceelectro.servicees;
 
 import org.example.serviceelectro.entities.Message;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,7 @@ public interface Imessage {
     List<Message> findBySenderId(Long senderId);
     List<Message> findByReceiverId(Long receiverId);
     List<Message> getConversation(Long userId1, Long userId2);
+    List<Message> getOlderMessages(Long userId1, Long userId2, LocalDateTime before, int limit);
     void markAsRead(Long messageId);
     void markAllAsRead(Long receiverId);
     long countUnreadMessages(Long receiverId);
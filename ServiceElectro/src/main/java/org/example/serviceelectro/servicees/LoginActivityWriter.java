@@ -0,0 +1,107 @@
+package org.example.serviceelectro.servicees;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Écriture différée de la dernière connexion, hors du chemin de la requête de login.
+ * Les connexions d'un même utilisateur sont fusionnées (la plus récente)
+ * puis écrites par lots avec un seul UPDATE ... CASE par lot.
+ * Le statut en ligne n'est plus écrit en base : voir PresenceService.
+ */
+@Service
+public class LoginActivityWriter {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Value("${login-activity.batch-size:500}")
+    private int batchSize;
+
+    // Utilisateur -> connexion la plus récente non encore écrite
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void recordLogin(Long userId) {
+        if (userId != null) {
+            pending.merge(userId, LocalDateTime.now(), LoginActivityWriter::latest);
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return b.isAfter(a) ? b : a;
+    }
+
+    @Scheduled(fixedDelayString = "${login-activity.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>();
+        boolean written = false;
+        for (Long userId : pending.keySet()) {
+            LocalDateTime lastLogin = pending.remove(userId);
+            if (lastLogin != null) {
+                batch.add(Map.entry(userId, lastLogin));
+            }
+            if (batch.size() == batchSize) {
+                written |= write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written |= write(batch);
+        }
+        if (written) {
+            // La dernière connexion n'est que dans la liste des utilisateurs : le reste du cache est gardé
+            userDirectory.invalidateUserSummaries();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean write(List<Map.Entry<Long, LocalDateTime>> batch) {
+        StringBuilder loginCase = new StringBuilder("CASE id");
+        StringBuilder ids = new StringBuilder();
+        List<Object> loginParams = new ArrayList<>();
+        List<Object> idParams = new ArrayList<>();
+
+        for (Map.Entry<Long, LocalDateTime> entry : batch) {
+            loginCase.append(" WHEN ? THEN ?");
+            loginParams.add(entry.getKey());
+            loginParams.add(Timestamp.valueOf(entry.getValue()));
+            ids.append(ids.isEmpty() ? "?" : ",?");
+            idParams.add(entry.getKey());
+        }
+        loginCase.append(" ELSE last_login END");
+
+        List<Object> params = new ArrayList<>(loginParams);
+        params.addAll(idParams);
+        String sql = "UPDATE utilisateur SET last_login = " + loginCase + " WHERE id IN (" + ids + ")";
+        try {
+            jdbcTemplate.update(sql, params.toArray());
+            return true;
+        } catch (RuntimeException e) {
+            // Réessayé au prochain passage, sans écraser une connexion plus récente
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), LoginActivityWriter::latest));
+            System.err.println("❌ Erreur lors de l'écriture des connexions (" + batch.size() + " utilisateur(s)): " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.serviceelectro.servicees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Déplace les conversations inactives depuis message.archive.idle-months mois
+ * de la table message vers l'archive froide message_archive.
+ * La table message ne garde ainsi que les conversations actives ; l'historique archivé
+ * reste lisible via GET /api/messages/conversation/{userId1}/{userId2}/older.
+ */
+@Service
+public class MessageArchiveJob {
+
+    private static final String MESSAGE_COLUMNS = "id, content, sender_id, receiver_id, is_read, file_url, file_name, " +
+            "file_type, latitude, longitude, location_name, created_at, updated_at";
+
+    private static final String CONVERSATION_FILTER =
+            "((sender_id = ? AND receiver_id = ?) OR (sender_id = ? AND receiver_id = ?)) AND id <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Value("${message.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${message.archive.idle-months:6}")
+    private int idleMonths;
+
+    @Value("${message.archive.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * S'exécute chaque nuit (configurable avec message.archive.cron).
+     */
+    @Scheduled(cron = "${message.archive.cron:0 30 3 * * *}")
+    public void archiveIdleConversations() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMonths(idleMonths);
+        int archivedConversations = 0;
+        int archivedMessages = 0;
+
+        List<long[]> conversations;
+        do {
+            conversations = findIdleConversations(cutoff);
+            for (long[] conversation : conversations) {
+                try {
+                    archivedMessages += archiveConversation(conversation[0], conversation[1], conversation[2]);
+                    archivedConversations++;
+                } catch (Exception e) {
+                    System.err.println("❌ Erreur lors de l'archivage de la conversation " +
+                            conversation[0] + " <-> " + conversation[1] + ": " + e.getMessage());
+                    return;
+                }
+            }
+        } while (conversations.size() == batchSize);
+
+        if (archivedConversations > 0) {
+            System.out.println("📦 " + archivedConversations + " conversation(s) archivée(s), " +
+                    archivedMessages + " message(s) déplacé(s) vers message_archive");
+        }
+    }
+
+    // Chaque ligne : [utilisateur A, utilisateur B, plus grand ID de message de la conversation]
+    private List<long[]> findIdleConversations(LocalDateTime cutoff) {
+        String sql = "SELECT LEAST(sender_id, receiver_id) AS user_a, GREATEST(sender_id, receiver_id) AS user_b, " +
+                "MAX(id) AS max_id FROM message " +
+                "GROUP BY user_a, user_b " +
+                "HAVING MAX(created_at) < ? " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new long[]{rs.getLong("user_a"), rs.getLong("user_b"), rs.getLong("max_id")},
+                Timestamp.valueOf(cutoff), batchSize);
+    }
+
+    /**
+     * Copie puis supprime les messages de la conversation dans une seule transaction.
+     * La borne sur l'ID évite de supprimer un message arrivé entre la copie et la suppression.
+     */
+    private int archiveConversation(long userA, long userB, long maxId) {
+        Integer moved = transactionTemplate.execute(status -> {
+            Object[] params = {userA, userB, userB, userA, maxId};
+            int copied = jdbcTemplate.update(
+                    "INSERT INTO message_archive (" + MESSAGE_COLUMNS + ", archived_at) " +
+                            "SELECT " + MESSAGE_COLUMNS + ", NOW() FROM message WHERE " + CONVERSATION_FILTER,
+                    params);
+            int deleted = jdbcTemplate.update("DELETE FROM message WHERE " + CONVERSATION_FILTER, params);
+            if (copied != deleted) {
+                throw new IllegalStateException("Archivage incohérent: " + copied + " copié(s), " + deleted + " supprimé(s)");
+            }
+            return deleted;
+        });
+        // Les messages non lus archivés ne sont plus comptés par countByReceiverIdAndIsReadFalse
+        unreadCounterStore.evictAfterCommit(UnreadCounterStore.Counter.MESSAGES, userA);
+        unreadCounterStore.evictAfterCommit(UnreadCounterStore.Counter.MESSAGES, userB);
+        return moved != null ? moved : 0;
+    }
+}
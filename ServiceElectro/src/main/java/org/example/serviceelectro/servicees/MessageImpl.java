@@ -1,12 +1,19 @@
 package org.example.serviceelectro.servicees;
 
+import org.example.serviceelectro.dto.UserSummary;
 import org.example.serviceelectro.entities.Message;
-import org.example.serviceelectro.entities.Notification;
+import org.example.serviceelectro.entities.OutboxEvent;
+import org.example.serviceelectro.repository.ArchivedMessageRepository;
 import org.example.serviceelectro.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,8 +26,20 @@ public class MessageImpl implements Imessage {
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
     @Autowired(required = false)
-    private INotification notificationService;
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private UserDirectory userDirectory;
 
     @Override
     public List<Message> getAllMessages() {
@@ -55,29 +74,35 @@ public class MessageImpl implements Imessage {
             
             Message saved = messageRepository.save(message);
             System.out.println("✅ Message saved with ID: " + saved.getId());
+            messageSearchIndex.indexAfterCommit(saved);
+            if (!Boolean.TRUE.equals(saved.getIsRead())) {
+                unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.MESSAGES, saved.getReceiver().getId(), 1);
+            }
             
-            // Créer une notification pour le destinataire
+            // Créer une notification pour le destinataire (via l'outbox, dans la même transaction)
             if (saved.getReceiver() != null) {
-                if (notificationService == null) {
-                    System.out.println("⚠️ NotificationService is null - notifications will not be created");
+                if (notificationOutbox == null) {
+                    System.out.println("⚠️ NotificationOutbox is null - notifications will not be created");
                 } else {
                     try {
-                        String senderName = saved.getSender().getRealUsername() != null 
-                            ? saved.getSender().getRealUsername() 
-                            : saved.getSender().getEmail();
+                        // Nom lu dans le résumé en cache : l'expéditeur peut n'être qu'une référence non chargée
+                        String senderName = userDirectory.getSummaryById(saved.getSender().getId())
+                            .map(UserSummary::getDisplayName)
+                            .orElse("un utilisateur");
                         String messagePreview = saved.getContent() != null && saved.getContent().length() > 50 
                             ? saved.getContent().substring(0, 50) + "..." 
                             : (saved.getContent() != null ? saved.getContent() : "[Message avec fichier/localisation]");
                         String notificationMessage = String.format("Nouveau message de %s: %s", senderName, messagePreview);
                         
-                        System.out.println("🔔 Creating notification for receiver ID: " + saved.getReceiver().getId());
-                        Notification notification = notificationService.createNotification(
+                        System.out.println("🔔 Queuing notification for receiver ID: " + saved.getReceiver().getId());
+                        OutboxEvent event = notificationOutbox.enqueue(
                             saved.getReceiver().getId(),
                             notificationMessage,
                             "NEW_MESSAGE",
-                            null // Pas de publication associée
+                            null, // Pas de publication associée
+                            "message:" + saved.getSender().getId() // Regroupe les messages d'un même expéditeur
                         );
-                        System.out.println("✅ Notification created successfully with ID: " + notification.getId());
+                        System.out.println("✅ Notification queued with outbox event ID: " + event.getId());
                     } catch (Exception e) {
                         // Ne pas faire échouer l'envoi du message si la notification échoue
                         System.err.println("❌ Erreur lors de la création de la notification de message: " + e.getMessage());
@@ -105,11 +130,22 @@ public class MessageImpl implements Imessage {
     public void deleteMessage(Long id) {
         Optional<Message> messageOpt = messageRepository.findById(id);
         if (messageOpt.isEmpty()) {
-            throw new IllegalArgumentException("Message non trouvé avec l'ID: " + id);
+            // Message peut-être déjà déplacé dans l'archive froide
+            if (!archivedMessageRepository.existsById(id)) {
+                throw new IllegalArgumentException("Message non trouvé avec l'ID: " + id);
+            }
+            archivedMessageRepository.deleteById(id);
+            messageSearchIndex.removeAfterCommit(id);
+            return;
         }
         
         // Seul l'admin peut supprimer les messages (vérifié au niveau du contrôleur avec @PreAuthorize)
+        Message message = messageOpt.get();
+        if (!Boolean.TRUE.equals(message.getIsRead()) && message.getReceiver() != null) {
+            unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.MESSAGES, message.getReceiver().getId(), -1);
+        }
         messageRepository.deleteById(id);
+        messageSearchIndex.removeAfterCommit(id);
     }
     
     @Override
@@ -136,7 +172,7 @@ public class MessageImpl implements Imessage {
             List<Message> messages1 = messageRepository.findBySenderIdAndReceiverIdOrderByCreatedAtAsc(userId1, userId2);
             List<Message> messages2 = messageRepository.findBySenderIdAndReceiverIdOrderByCreatedAtAsc(userId2, userId1);
             
-            // Combiner et trier par date
+            // Combiner et trier par date (messages récents uniquement : l'archive est servie par getOlderMessages)
             return Stream.concat(messages1.stream(), messages2.stream())
                     .sorted((m1, m2) -> {
                         if (m1.getCreatedAt() == null && m2.getCreatedAt() == null) return 0;
@@ -152,11 +188,37 @@ public class MessageImpl implements Imessage {
         }
     }
 
+    /**
+     * Page "charger plus ancien" d'une conversation : les messages antérieurs à {@code before},
+     * lus d'abord dans la table message puis complétés depuis l'archive froide.
+     * Retourne au plus {@code limit} messages, triés du plus ancien au plus récent.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Message> getOlderMessages(Long userId1, Long userId2, LocalDateTime before, int limit) {
+        List<Message> older = new ArrayList<>(
+                messageRepository.findConversationBefore(userId1, userId2, before, PageRequest.of(0, limit)));
+
+        if (older.size() < limit) {
+            // L'archive ne contient que des messages plus anciens que ceux encore dans la table message
+            LocalDateTime archiveBefore = older.isEmpty() ? before : older.get(older.size() - 1).getCreatedAt();
+            archivedMessageRepository.findConversationBefore(userId1, userId2, archiveBefore,
+                            PageRequest.of(0, limit - older.size()))
+                    .forEach(archived -> older.add(archived.toMessage()));
+        }
+
+        Collections.reverse(older);
+        return older;
+    }
+
     @Override
     public void markAsRead(Long messageId) {
         Optional<Message> messageOpt = messageRepository.findById(messageId);
         if (messageOpt.isPresent()) {
             Message message = messageOpt.get();
+            if (!Boolean.TRUE.equals(message.getIsRead()) && message.getReceiver() != null) {
+                unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.MESSAGES, message.getReceiver().getId(), -1);
+            }
             message.setIsRead(true);
             messageRepository.save(message);
         }
@@ -169,11 +231,15 @@ public class MessageImpl implements Imessage {
             message.setIsRead(true);
         }
         messageRepository.saveAll(unreadMessages);
+        unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.MESSAGES, receiverId, -unreadMessages.size());
     }
 
+    // Servi depuis UnreadCounterStore : pas de transaction ni de requête SQL pour les polls de badge
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public long countUnreadMessages(Long receiverId) {
-        return messageRepository.countByReceiverIdAndIsReadFalse(receiverId);
+        return unreadCounterStore.get(UnreadCounterStore.Counter.MESSAGES, receiverId,
+                () -> messageRepository.countByReceiverIdAndIsReadFalse(receiverId));
     }
 }
 
@@ -0,0 +1,330 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.dto.MessageDTO;
+import org.example.serviceelectro.dto.MessageSearchHitDTO;
+import org.example.serviceelectro.dto.PagedResponse;
+import org.example.serviceelectro.entities.Message;
+import org.example.serviceelectro.mapper.MessageMapper;
+import org.example.serviceelectro.repository.ArchivedMessageRepository;
+import org.example.serviceelectro.repository.MessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé en mémoire sur le contenu et le nom de fichier des messages.
+ * Construit au premier appel à partir des tables message et message_archive, puis tenu à jour
+ * par MessageImpl après chaque commit (envoi et suppression de messages).
+ * Les termes sont normalisés (minuscules, sans accents) ; le dernier terme de la requête
+ * est cherché par préfixe pour permettre la recherche pendant la saisie.
+ */
+@Service
+public class MessageSearchIndex {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    // Participant -> (terme -> IDs de ses messages qui le contiennent), trié pour les recherches par préfixe.
+    // Une recherche ne parcourt que les listes de l'utilisateur, même pour un préfixe très courant
+    private final Map<Long, ConcurrentSkipListMap<String, Set<Long>>> postingsByUser = new ConcurrentHashMap<>();
+
+    // ID du message -> participants et termes indexés (pour la suppression)
+    private final Map<Long, IndexedMessage> documents = new ConcurrentHashMap<>();
+
+    // Suppressions reçues pendant la construction initiale, à ne pas réindexer
+    private final Set<Long> removedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean built;
+
+    private record IndexedMessage(long senderId, long receiverId, Set<String> terms) {
+        boolean involves(long userId) {
+            return senderId == userId || receiverId == userId;
+        }
+
+        List<Long> participants() {
+            return senderId == receiverId ? List.of(senderId) : List.of(senderId, receiverId);
+        }
+    }
+
+    /**
+     * Indexe le message une fois la transaction courante validée.
+     */
+    public void indexAfterCommit(Message message) {
+        if (message.getId() == null || message.getSender() == null || message.getReceiver() == null) {
+            return;
+        }
+        long id = message.getId();
+        long senderId = message.getSender().getId();
+        long receiverId = message.getReceiver().getId();
+        String content = message.getContent();
+        String fileName = message.getFileName();
+        runAfterCommit(() -> add(id, senderId, receiverId, content, fileName));
+    }
+
+    /**
+     * Retire le message de l'index une fois la transaction courante validée.
+     */
+    public void removeAfterCommit(Long messageId) {
+        if (messageId != null) {
+            runAfterCommit(() -> remove(messageId));
+        }
+    }
+
+    /**
+     * Retire de l'index tous les messages de l'utilisateur (suppression du compte)
+     * une fois la transaction courante validée.
+     */
+    public void removeParticipantAfterCommit(Long userId) {
+        if (userId != null) {
+            runAfterCommit(() -> {
+                documents.forEach((id, doc) -> {
+                    if (doc.involves(userId)) {
+                        remove(id);
+                    }
+                });
+                postingsByUser.remove(userId);
+            });
+        }
+    }
+
+    /**
+     * Recherche dans les conversations de l'utilisateur, résultats du plus récent au plus ancien.
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<MessageSearchHitDTO> search(Long userId, String query, int page, int size) {
+        if (userId == null) {
+            throw new IllegalArgumentException("L'ID de l'utilisateur est requis");
+        }
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("La recherche doit contenir au moins un mot");
+        }
+        ensureBuilt();
+
+        List<Long> matches = new ArrayList<>(candidates(userId, terms));
+        // IDs croissants dans le temps : tri décroissant = plus récents d'abord
+        matches.sort(Comparator.reverseOrder());
+
+        int from = Math.min(page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+        List<Long> pageIds = matches.subList(from, to);
+
+        List<MessageSearchHitDTO> hits = new ArrayList<>();
+        for (Message message : loadMessages(pageIds)) {
+            MessageDTO dto = messageMapper.toDTO(message);
+            hits.add(MessageSearchHitDTO.builder()
+                    .message(dto)
+                    .highlightedContent(highlight(message.getContent(), terms))
+                    .highlightedFileName(highlight(message.getFileName(), terms))
+                    .build());
+        }
+
+        return PagedResponse.<MessageSearchHitDTO>builder()
+                .content(hits)
+                .page(page)
+                .size(size)
+                .totalElements(matches.size())
+                .totalPages((matches.size() + size - 1) / size)
+                .build();
+    }
+
+    // Intersection des listes de termes de l'utilisateur, en partant de la plus courte ; le dernier terme est un préfixe
+    private Set<Long> candidates(Long userId, List<String> terms) {
+        NavigableMap<String, Set<Long>> postings = postingsByUser.get(userId);
+        if (postings == null) {
+            return Set.of();
+        }
+        List<Collection<Long>> lists = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (i == terms.size() - 1) {
+                NavigableMap<String, Set<Long>> range = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+                Set<Long> union = new HashSet<>();
+                range.values().forEach(union::addAll);
+                lists.add(union);
+            } else {
+                lists.add(postings.getOrDefault(term, Set.of()));
+            }
+        }
+        lists.sort(Comparator.comparingInt(Collection::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    // Messages de la page, dans l'ordre des IDs ; ceux déjà archivés sont lus dans message_archive
+    private List<Message> loadMessages(List<Long> ids) {
+        Map<Long, Message> byId = new HashMap<>();
+        messageRepository.findAllById(ids).forEach(m -> byId.put(m.getId(), m));
+        List<Long> missing = ids.stream().filter(id -> !byId.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            archivedMessageRepository.findAllById(missing).forEach(a -> byId.put(a.getId(), a.toMessage()));
+        }
+
+        List<Message> ordered = new ArrayList<>();
+        for (Long id : ids) {
+            Message message = byId.get(id);
+            if (message != null) {
+                ordered.add(message);
+            } else {
+                // Supprimé hors de MessageImpl (ex. suppression en cascade d'un utilisateur)
+                remove(id);
+            }
+        }
+        return ordered;
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (this) {
+            if (built) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            String sql = "SELECT id, sender_id, receiver_id, content, file_name FROM message " +
+                    "UNION ALL SELECT id, sender_id, receiver_id, content, file_name FROM message_archive";
+            jdbcTemplate.query(sql, rs -> {
+                long id = rs.getLong("id");
+                if (!removedDuringBuild.contains(id)) {
+                    add(id, rs.getLong("sender_id"), rs.getLong("receiver_id"),
+                            rs.getString("content"), rs.getString("file_name"));
+                }
+            });
+            removedDuringBuild.clear();
+            built = true;
+            System.out.println("🔎 Index de recherche des messages construit: " + documents.size() +
+                    " message(s), " + postingsByUser.size() + " utilisateur(s) en " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private void add(long id, long senderId, long receiverId, String content, String fileName) {
+        Set<String> terms = new HashSet<>(tokenize(content));
+        terms.addAll(tokenize(fileName));
+        IndexedMessage doc = new IndexedMessage(senderId, receiverId, terms);
+        if (documents.putIfAbsent(id, doc) != null) {
+            return;
+        }
+        for (Long userId : doc.participants()) {
+            ConcurrentSkipListMap<String, Set<Long>> postings =
+                    postingsByUser.computeIfAbsent(userId, u -> new ConcurrentSkipListMap<>());
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    private void remove(Long id) {
+        if (!built) {
+            removedDuringBuild.add(id);
+        }
+        IndexedMessage doc = documents.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (Long userId : doc.participants()) {
+            ConcurrentSkipListMap<String, Set<Long>> postings = postingsByUser.get(userId);
+            if (postings == null) {
+                continue;
+            }
+            for (String term : doc.terms()) {
+                postings.computeIfPresent(term, (t, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase();
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        Matcher matcher = WORD.matcher(fold(text));
+        while (matcher.find()) {
+            terms.add(matcher.group());
+        }
+        return new ArrayList<>(terms);
+    }
+
+    // Entoure de <mark> les mots dont la forme normalisée correspond à un terme (préfixe pour le dernier)
+    static String highlight(String text, List<String> terms) {
+        if (text == null) {
+            return null;
+        }
+        String lastTerm = terms.get(terms.size() - 1);
+        StringBuilder out = new StringBuilder();
+        Matcher matcher = WORD.matcher(text);
+        int position = 0;
+        while (matcher.find()) {
+            String word = matcher.group();
+            String folded = fold(word);
+            if (terms.contains(folded) || folded.startsWith(lastTerm)) {
+                out.append(escapeHtml(text.substring(position, matcher.start())))
+                        .append("<mark>").append(escapeHtml(word)).append("</mark>");
+                position = matcher.end();
+            }
+        }
+        out.append(escapeHtml(text.substring(position)));
+        return out.toString();
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;").replace("'", "&#39;");
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.dto.BroadcastStatusDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notification envoyée par l'admin à tous les utilisateurs (ex. maintenance).
+ * Les lignes sont insérées en arrière-plan par tranches d'IDs utilisateur avec un INSERT ... SELECT :
+ * une requête par tranche, sans charger les utilisateurs ni passer par createNotification.
+ * L'avancement est consultable via GET /api/admin/notifications/broadcast/{id}.
+ */
+@Service
+public class NotificationBroadcastService {
+
+    public static final String AUDIENCE_ALL = "ALL";
+    public static final String AUDIENCE_USERS = "USERS";
+
+    private static final String DEFAULT_TYPE = "BROADCAST";
+    private static final int MAX_KEPT_BROADCASTS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Value("${notification.broadcast.chunk-size:5000}")
+    private int chunkSize;
+
+    private final Map<String, Broadcast> broadcasts = new ConcurrentHashMap<>();
+
+    private static final class Broadcast {
+        final String id = UUID.randomUUID().toString();
+        final String message;
+        final String type;
+        final String audience;
+        final long totalRecipients;
+        final AtomicLong inserted = new AtomicLong();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile String state = "PENDING";
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Broadcast(String message, String type, String audience, long totalRecipients) {
+            this.message = message;
+            this.type = type;
+            this.audience = audience;
+            this.totalRecipients = totalRecipients;
+        }
+
+        BroadcastStatusDTO toDTO() {
+            long done = inserted.get();
+            return BroadcastStatusDTO.builder()
+                    .id(id)
+                    .message(message)
+                    .type(type)
+                    .audience(audience)
+                    .state(state)
+                    .totalRecipients(totalRecipients)
+                    .inserted(done)
+                    .progressPercent(totalRecipients == 0 ? 100 : (int) Math.min(100, done * 100 / totalRecipients))
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    /**
+     * Enregistre la diffusion (état PENDING) ; l'appelant lance ensuite {@link #run(String)}.
+     */
+    public BroadcastStatusDTO prepare(String message, String type, String audience) {
+        if (message == null || message.trim().isEmpty()) {
+            throw new IllegalArgumentException("Le message est requis");
+        }
+        if (message.length() > 500) {
+            throw new IllegalArgumentException("Le message ne doit pas dépasser 500 caractères");
+        }
+        String resolvedAudience = audience == null ? AUDIENCE_ALL : audience.toUpperCase();
+        if (!AUDIENCE_ALL.equals(resolvedAudience) && !AUDIENCE_USERS.equals(resolvedAudience)) {
+            throw new IllegalArgumentException("Audience invalide: " + audience + " (ALL ou USERS)");
+        }
+        String resolvedType = type == null || type.isBlank() ? DEFAULT_TYPE : type;
+
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM utilisateur WHERE 1 = 1" + audienceFilter(resolvedAudience), Long.class);
+        Broadcast broadcast = new Broadcast(message.trim(), resolvedType, resolvedAudience, total != null ? total : 0);
+
+        evictOldBroadcasts();
+        broadcasts.put(broadcast.id, broadcast);
+        return broadcast.toDTO();
+    }
+
+    @Async
+    public void run(String broadcastId) {
+        Broadcast broadcast = broadcasts.get(broadcastId);
+        if (broadcast == null || !"PENDING".equals(broadcast.state)) {
+            return;
+        }
+        broadcast.state = "RUNNING";
+        broadcast.startedAt = LocalDateTime.now();
+        String filter = audienceFilter(broadcast.audience);
+        Timestamp now = Timestamp.valueOf(broadcast.startedAt);
+
+        try {
+            long lastId = 0;
+            while (true) {
+                // Borne haute de la tranche : le chunkSize-ième ID suivant (parcours par clé, sans OFFSET)
+                Long upperId = jdbcTemplate.queryForObject(
+                        "SELECT MAX(id) FROM (SELECT id FROM utilisateur WHERE id > ?" + filter +
+                                " ORDER BY id LIMIT ?) chunk",
+                        Long.class, lastId, chunkSize);
+                if (upperId == null) {
+                    break;
+                }
+                int inserted = jdbcTemplate.update(
+                        "INSERT INTO notification (user_id, message, is_read, notification_type, occurrences, created_at) " +
+                                "SELECT id, ?, FALSE, ?, 1, ? FROM utilisateur WHERE id > ? AND id <= ?" + filter,
+                        broadcast.message, broadcast.type, now, lastId, upperId);
+                broadcast.inserted.addAndGet(inserted);
+                lastId = upperId;
+            }
+            broadcast.state = "DONE";
+            System.out.println("📢 Diffusion " + broadcast.id + " terminée: " + broadcast.inserted.get() + " notification(s)");
+        } catch (Exception e) {
+            broadcast.state = "FAILED";
+            broadcast.error = e.getMessage();
+            System.err.println("❌ Erreur lors de la diffusion " + broadcast.id + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            broadcast.finishedAt = LocalDateTime.now();
+            // Les compteurs de tous les utilisateurs ont changé : rechargement et resync des flux SSE
+            unreadCounterStore.evictAllAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS);
+            notificationStreamService.resyncAll("broadcast");
+        }
+    }
+
+    public Optional<BroadcastStatusDTO> getStatus(String broadcastId) {
+        return Optional.ofNullable(broadcasts.get(broadcastId)).map(Broadcast::toDTO);
+    }
+
+    private String audienceFilter(String audience) {
+        return AUDIENCE_USERS.equals(audience) ? " AND (role IS NULL OR role <> 'ADMIN')" : "";
+    }
+
+    // Ne garde que les dernières diffusions terminées
+    private void evictOldBroadcasts() {
+        if (broadcasts.size() < MAX_KEPT_BROADCASTS) {
+            return;
+        }
+        broadcasts.values().stream()
+                .filter(b -> b.finishedAt != null)
+                .min((a, b) -> a.createdAt.compareTo(b.createdAt))
+                .ifPresent(oldest -> broadcasts.remove(oldest.id));
+    }
+}
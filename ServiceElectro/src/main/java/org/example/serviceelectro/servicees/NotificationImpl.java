@@ -1,15 +1,24 @@
 package org.example.serviceelectro.servicees;
 
+import org.example.serviceelectro.dto.CursorPage;
+import org.example.serviceelectro.dto.NotificationDTO;
 import org.example.serviceelectro.entities.Notification;
 import org.example.serviceelectro.entities.Publication;
 import org.example.serviceelectro.entities.Utilisateur;
+import org.example.serviceelectro.mapper.NotificationMapper;
 import org.example.serviceelectro.repository.NotificationRepository;
 import org.example.serviceelectro.repository.PublicationRepository;
 import org.example.serviceelectro.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +26,8 @@ import java.util.Optional;
 @Transactional
 public class NotificationImpl implements INotification {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
@@ -26,6 +37,15 @@ public class NotificationImpl implements INotification {
     @Autowired
     private PublicationRepository publicationRepository;
 
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
     @Override
     public Notification createNotification(Long userId, String message, String type, Long publicationId) {
         Optional<Utilisateur> userOpt = userRepository.findById(userId);
@@ -45,7 +65,56 @@ public class NotificationImpl implements INotification {
             publicationOpt.ifPresent(notification::setPublication);
         }
 
-        return notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS, userId, 1);
+        notificationStreamService.publishNotificationAfterCommit(userId, notificationMapper.toDTO(saved),
+                () -> getUnreadCount(userId));
+        return saved;
+    }
+
+    /**
+     * Regroupe {@code occurrences} événements dans la notification non lue de même type et source
+     * si elle existe (compteur incrémenté, dernier aperçu conservé), sinon crée une nouvelle notification.
+     */
+    @Override
+    public Notification createOrCoalesceNotification(Long userId, String message, String type, Long publicationId,
+                                                     String sourceKey, int occurrences) {
+        if (sourceKey == null) {
+            return createNotification(userId, message, type, publicationId);
+        }
+
+        Long existingId = notificationRepository.findUnreadIdForCoalescing(userId, type, sourceKey);
+        // Lue entre la recherche et la mise à jour : les événements vont dans une nouvelle notification
+        if (existingId != null && notificationRepository.coalesce(existingId, occurrences, message, LocalDateTime.now()) > 0) {
+            Notification coalesced = notificationRepository.findById(existingId)
+                    .orElseThrow(() -> new IllegalStateException("Notification regroupée introuvable: " + existingId));
+            // Toujours une seule notification non lue : le compteur de non lues ne change pas
+            notificationStreamService.publishNotificationAfterCommit(userId, notificationMapper.toDTO(coalesced),
+                    () -> getUnreadCount(userId));
+            return coalesced;
+        }
+
+        Optional<Utilisateur> userOpt = userRepository.findById(userId);
+        if (userOpt.isEmpty()) {
+            throw new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + userId);
+        }
+        Notification notification = Notification.builder()
+                .user(userOpt.get())
+                .message(message)
+                .type(type)
+                .isRead(false)
+                .sourceKey(sourceKey)
+                .occurrences(occurrences)
+                .build();
+        if (publicationId != null) {
+            publicationRepository.findById(publicationId).ifPresent(notification::setPublication);
+        }
+
+        Notification saved = notificationRepository.save(notification);
+        unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS, userId, 1);
+        notificationStreamService.publishNotificationAfterCommit(userId, notificationMapper.toDTO(saved),
+                () -> getUnreadCount(userId));
+        return saved;
     }
 
     @Override
@@ -70,11 +139,66 @@ public class NotificationImpl implements INotification {
         }
     }
 
+    /**
+     * Page de notifications triée du plus récent au plus ancien, parcourue par curseur (createdAt, id) :
+     * le coût d'une page ne dépend pas de la taille de l'historique.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDTO> getNotificationPage(Long userId, String cursor, int size, boolean unreadOnly) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Une ligne de plus que demandé pour savoir s'il reste une page
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<NotificationDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findFirstPage(userId, unreadOnly, limit);
+        } else {
+            NotificationCursor position = decodeCursor(cursor);
+            rows = notificationRepository.findPageAfter(userId, unreadOnly, position.createdAt(), position.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<NotificationDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+
+        return CursorPage.<NotificationDTO>builder()
+                .items(items)
+                .size(items.size())
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private record NotificationCursor(LocalDateTime createdAt, Long id) {
+    }
+
+    // Curseur opaque pour le client : "createdAt|id" en Base64 URL
+    private String encodeCursor(NotificationDTO last) {
+        String raw = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private NotificationCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new NotificationCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+
+    // Servi depuis UnreadCounterStore : pas de transaction ni de requête SQL pour les polls de badge
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Long getUnreadCount(Long userId) {
         try {
-            Long count = notificationRepository.countByUser_IdAndIsReadFalse(userId);
-            return count != null ? count : 0L;
+            return unreadCounterStore.get(UnreadCounterStore.Counter.NOTIFICATIONS, userId, () -> {
+                Long count = notificationRepository.countByUser_IdAndIsReadFalse(userId);
+                return count != null ? count : 0L;
+            });
         } catch (Exception e) {
             System.err.println("Erreur lors du comptage des notifications pour l'utilisateur " + userId + ": " + e.getMessage());
             e.printStackTrace();
@@ -90,6 +214,11 @@ public class NotificationImpl implements INotification {
         }
 
         Notification notification = notificationOpt.get();
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            Long userId = notification.getUser().getId();
+            unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS, userId, -1);
+            notificationStreamService.publishUnreadCountAfterCommit(userId, () -> getUnreadCount(userId));
+        }
         notification.setIsRead(true);
         return notificationRepository.save(notification);
     }
@@ -101,6 +230,8 @@ public class NotificationImpl implements INotification {
             notification.setIsRead(true);
         }
         notificationRepository.saveAll(unreadNotifications);
+        unreadCounterStore.adjustAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS, userId, -unreadNotifications.size());
+        notificationStreamService.publishUnreadCountAfterCommit(userId, () -> getUnreadCount(userId));
     }
 }
 
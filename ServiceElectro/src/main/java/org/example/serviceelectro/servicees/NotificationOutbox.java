@@ -0,0 +1,46 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.entities.OutboxEvent;
+import org.example.serviceelectro.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Point d'entrée des notifications métier.
+ * L'événement est écrit dans la table outbox_event dans la même transaction que l'appelant :
+ * il n'est visible que si le message ou la publication est bien enregistré, et il n'est pas
+ * perdu en cas d'arrêt. La création effective des notifications est faite par OutboxDispatcher.
+ */
+@Service
+public class NotificationOutbox {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(Long recipientId, String message, String type, Long publicationId) {
+        return enqueue(recipientId, message, type, publicationId, null);
+    }
+
+    /**
+     * Comme {@link #enqueue(Long, String, String, Long)}, mais les événements non lus de même destinataire,
+     * type et {@code sourceKey} sont regroupés dans une seule notification par OutboxDispatcher.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(Long recipientId, String message, String type, Long publicationId, String sourceKey) {
+        if (recipientId == null) {
+            throw new IllegalArgumentException("Le destinataire de la notification est requis");
+        }
+
+        OutboxEvent event = OutboxEvent.builder()
+                .recipientId(recipientId)
+                .eventType(type)
+                .message(message)
+                .publicationId(publicationId)
+                .sourceKey(sourceKey)
+                .build();
+        return outboxEventRepository.save(event);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.serviceelectro.servicees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.serviceelectro.config.NotificationRetentionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Purge périodique de la table notification selon NotificationRetentionProperties :
+ * notifications lues plus anciennes que la durée de leur type, notifications non lues très anciennes,
+ * et notifications lues au-delà de maxReadPerUser par utilisateur.
+ * Les suppressions se font par petits lots (DELETE ... LIMIT), chacun dans sa propre transaction,
+ * pour ne jamais verrouiller la table longtemps.
+ * Métriques : notifications.purged (tags reason, type) et notifications.purge.duration.
+ */
+@Service
+public class NotificationRetentionJob {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationRetentionProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Scheduled(cron = "${notification.retention.cron:0 0 4 * * *}")
+    public void purge() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long total = 0;
+        try {
+            total += purgeRead();
+            total += purgeUnread();
+            total += compactPerUser();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("❌ Erreur lors de la purge des notifications: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            sample.stop(meterRegistry.timer("notifications.purge.duration"));
+        }
+
+        if (total > 0) {
+            System.out.println("🧹 " + total + " notification(s) supprimée(s) par la purge de rétention");
+        }
+    }
+
+    private long purgeRead() throws InterruptedException {
+        long deleted = 0;
+        Map<String, Integer> byType = properties.getReadDaysByType();
+
+        for (Map.Entry<String, Integer> entry : byType.entrySet()) {
+            if (entry.getValue() > 0) {
+                deleted += deleteInBatches("read", entry.getKey(),
+                        "DELETE FROM notification WHERE is_read = TRUE AND notification_type = ? AND created_at < ? LIMIT ?",
+                        entry.getKey(), cutoff(entry.getValue()));
+            }
+        }
+
+        if (properties.getReadDays() > 0) {
+            // Types sans durée spécifique
+            List<Object> params = new ArrayList<>(byType.keySet());
+            String typeFilter = byType.isEmpty() ? "" : " AND (notification_type IS NULL OR notification_type NOT IN (" +
+                    String.join(",", Collections.nCopies(byType.size(), "?")) + "))";
+            params.add(cutoff(properties.getReadDays()));
+            deleted += deleteInBatches("read", "default",
+                    "DELETE FROM notification WHERE is_read = TRUE" + typeFilter + " AND created_at < ? LIMIT ?",
+                    params.toArray());
+        }
+        return deleted;
+    }
+
+    private long purgeUnread() throws InterruptedException {
+        if (properties.getUnreadDays() <= 0) {
+            return 0;
+        }
+        long deleted = deleteInBatches("unread", "all",
+                "DELETE FROM notification WHERE is_read = FALSE AND created_at < ? LIMIT ?",
+                cutoff(properties.getUnreadDays()));
+        if (deleted > 0) {
+            // Les compteurs de non lues des utilisateurs concernés ne sont plus exacts
+            unreadCounterStore.evictAllAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS);
+        }
+        return deleted;
+    }
+
+    // Garde au plus maxReadPerUser notifications lues par utilisateur (les plus récentes)
+    private long compactPerUser() throws InterruptedException {
+        int keep = properties.getMaxReadPerUser();
+        if (keep <= 0) {
+            return 0;
+        }
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT user_id FROM notification WHERE is_read = TRUE GROUP BY user_id HAVING COUNT(*) > ?",
+                Long.class, keep);
+
+        long deleted = 0;
+        for (Long userId : userIds) {
+            // ID de la plus ancienne notification lue à conserver ; tout ce qui est plus ancien est supprimé
+            List<Long> boundary = jdbcTemplate.queryForList(
+                    "SELECT id FROM notification WHERE user_id = ? AND is_read = TRUE ORDER BY id DESC LIMIT 1 OFFSET ?",
+                    Long.class, userId, keep - 1);
+            if (!boundary.isEmpty()) {
+                deleted += deleteInBatches("compaction", "all",
+                        "DELETE FROM notification WHERE user_id = ? AND is_read = TRUE AND id < ? LIMIT ?",
+                        userId, boundary.get(0));
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Exécute le DELETE (dont le dernier paramètre est le LIMIT) jusqu'à ce qu'un lot soit incomplet.
+     */
+    private long deleteInBatches(String reason, String type, String sql, Object... params) throws InterruptedException {
+        Object[] batchParams = new Object[params.length + 1];
+        System.arraycopy(params, 0, batchParams, 0, params.length);
+        batchParams[params.length] = properties.getBatchSize();
+
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, batchParams);
+            total += deleted;
+            if (deleted > 0) {
+                meterRegistry.counter("notifications.purged", "reason", reason, "type", type).increment(deleted);
+                if (properties.getPauseMs() > 0) {
+                    Thread.sleep(properties.getPauseMs());
+                }
+            }
+        } while (deleted == properties.getBatchSize());
+        return total;
+    }
+
+    private Timestamp cutoff(int days) {
+        return Timestamp.valueOf(LocalDateTime.now().minusDays(days));
+    }
+}
@@ -0,0 +1,309 @@
+package org.example.serviceelectro.servicees;
+
+import jakarta.annotation.PreDestroy;
+import org.example.serviceelectro.dto.NotificationDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Flux Server-Sent Events des notifications, par utilisateur connecté.
+ * Événements émis : "notification" (nouvelle notification) et "unread-count" (nombre de non lues).
+ * Les derniers événements de chaque utilisateur sont gardés pour rejouer ceux manqués
+ * lors d'une reconnexion (en-tête Last-Event-ID) ; si c'est impossible, un événement "resync"
+ * demande au client de recharger la liste.
+ * Chaque connexion a une file bornée : un client trop lent est déconnecté et se reconnecte.
+ * Une connexion inactive ne coûte qu'un SseEmitter, aucun thread n'est bloqué.
+ */
+@Service
+public class NotificationStreamService {
+
+    // Identifie cette instance du serveur : un Last-Event-ID d'une instance précédente impose un resync
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    // Envoi des événements hors des threads appelants (threads virtuels : un envoi lent ne bloque rien)
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<Long, UserStream> streams = new ConcurrentHashMap<>();
+
+    @Value("${notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notifications.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${notifications.stream.replay-size:50}")
+    private int replaySize;
+
+    @Value("${notifications.stream.idle-retention-ms:600000}")
+    private long idleRetentionMs;
+
+    private record StreamEvent(long sequence, String name, Object data) {
+    }
+
+    private static final StreamEvent HEARTBEAT = new StreamEvent(-1, null, null);
+
+    /**
+     * Ouvre un flux pour l'utilisateur et rejoue les événements postérieurs à {@code lastEventId}.
+     */
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        // Attachement dans compute() : le nettoyage périodique ne peut pas retirer le flux entre-temps
+        streams.compute(userId, (id, existing) -> {
+            UserStream stream = existing != null ? existing : new UserStream();
+            Connection connection = new Connection(stream, emitter);
+            emitter.onCompletion(connection::close);
+            emitter.onTimeout(connection::close);
+            emitter.onError(error -> connection.close());
+            stream.attach(connection, lastEventId);
+            return stream;
+        });
+        return emitter;
+    }
+
+    /**
+     * Publie la nouvelle notification et le nouveau nombre de non lues après le commit.
+     * Le DTO doit être construit par l'appelant, dans la transaction.
+     */
+    public void publishNotificationAfterCommit(Long userId, NotificationDTO notification, LongSupplier unreadCount) {
+        runAfterCommit(() -> {
+            UserStream stream = streams.get(userId);
+            if (stream != null) {
+                stream.publish("notification", notification);
+                stream.publish("unread-count", Map.of("count", unreadCount.getAsLong()));
+            }
+        });
+    }
+
+    public void publishUnreadCountAfterCommit(Long userId, LongSupplier unreadCount) {
+        runAfterCommit(() -> {
+            UserStream stream = streams.get(userId);
+            if (stream != null) {
+                stream.publish("unread-count", Map.of("count", unreadCount.getAsLong()));
+            }
+        });
+    }
+
+    /**
+     * Demande à tous les clients connectés de recharger leurs notifications (ex. après une diffusion).
+     */
+    public void resyncAll(String reason) {
+        StreamEvent event = new StreamEvent(0, "resync", Map.of("reason", reason));
+        streams.values().forEach(stream -> stream.send(event));
+    }
+
+    /**
+     * Commentaire SSE périodique pour garder les connexions ouvertes à travers les proxys,
+     * et oubli des historiques des utilisateurs déconnectés depuis longtemps.
+     */
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        streams.forEach((userId, stream) -> {
+            stream.heartbeat();
+            streams.computeIfPresent(userId, (id, s) -> s.isIdleSince(now - idleRetentionMs) ? null : s);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.values().forEach(UserStream::closeAll);
+        sender.shutdownNow();
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Connexions et historique récent d'un utilisateur. Les publications et l'ouverture d'une connexion
+     * sont synchronisées pour que le rejeu et les nouveaux événements ne se chevauchent pas.
+     */
+    private final class UserStream {
+        private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<StreamEvent> history = new ArrayDeque<>();
+        private long nextSequence = 1;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        synchronized void attach(Connection connection, String lastEventId) {
+            connections.add(connection);
+            lastActivity = System.currentTimeMillis();
+
+            Long lastSequence = parseSequence(lastEventId);
+            if (lastEventId == null) {
+                return;
+            }
+            StreamEvent oldest = history.peekFirst();
+            if (lastSequence == null || (oldest != null && lastSequence < oldest.sequence() - 1)
+                    || lastSequence >= nextSequence) {
+                // Événements manqués introuvables : le client doit recharger la liste complète
+                connection.enqueue(new StreamEvent(0, "resync", Map.of("reason", "history-unavailable")));
+                return;
+            }
+            for (StreamEvent event : history) {
+                if (event.sequence() > lastSequence) {
+                    connection.enqueue(event);
+                }
+            }
+        }
+
+        synchronized void publish(String name, Object data) {
+            StreamEvent event = new StreamEvent(nextSequence++, name, data);
+            history.addLast(event);
+            while (history.size() > replaySize) {
+                history.removeFirst();
+            }
+            lastActivity = System.currentTimeMillis();
+            for (Connection connection : connections) {
+                connection.enqueue(event);
+            }
+        }
+
+        void heartbeat() {
+            for (Connection connection : connections) {
+                connection.heartbeat();
+            }
+        }
+
+        // Événement hors historique (non rejoué)
+        void send(StreamEvent event) {
+            for (Connection connection : connections) {
+                connection.enqueue(event);
+            }
+        }
+
+        void detach(Connection connection) {
+            connections.remove(connection);
+            lastActivity = System.currentTimeMillis();
+        }
+
+        boolean isIdleSince(long threshold) {
+            return connections.isEmpty() && lastActivity < threshold;
+        }
+
+        void closeAll() {
+            new ArrayList<>(connections).forEach(Connection::complete);
+        }
+
+        private Long parseSequence(String lastEventId) {
+            if (lastEventId == null || !lastEventId.startsWith(bootId + ":")) {
+                return null;
+            }
+            try {
+                return Long.parseLong(lastEventId.substring(bootId.length() + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private final class Connection {
+        private final UserStream stream;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Connection(UserStream stream, SseEmitter emitter) {
+            this.stream = stream;
+            this.emitter = emitter;
+        }
+
+        void enqueue(StreamEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Client trop lent : il se reconnectera avec Last-Event-ID et rattrapera l'historique
+                complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            if (!closed && queue.isEmpty()) {
+                enqueue(HEARTBEAT);
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<StreamEvent> batch = new ArrayList<>();
+                while (!closed && queue.drainTo(batch) > 0) {
+                    for (StreamEvent event : batch) {
+                        send(event);
+                    }
+                    batch.clear();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+                if (!closed && !queue.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        private void send(StreamEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (event.sequence() == 0) {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .id(bootId + ":" + event.sequence())
+                        .name(event.name())
+                        .data(event.data()));
+            }
+        }
+
+        void complete() {
+            close();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Déjà terminé
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+            stream.detach(this);
+        }
+    }
+}
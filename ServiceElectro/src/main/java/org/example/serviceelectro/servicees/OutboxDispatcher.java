@@ -0,0 +1,141 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.entities.OutboxEvent;
+import org.example.serviceelectro.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vide la table outbox_event en arrière-plan et crée les notifications correspondantes.
+ * Chaque événement (ou groupe d'événements) est traité dans sa propre transaction (notification + marquage DONE).
+ * En cas d'échec, les événements suivants du même destinataire sont reportés au cycle
+ * suivant pour conserver l'ordre par utilisateur ; après outbox.max-attempts essais,
+ * l'événement passe en FAILED.
+ * Les événements regroupables (sourceKey non null, ex. messages d'une même conversation) sont retenus
+ * outbox.coalesce-window-ms puis fusionnés en une seule notification avec un compteur.
+ * Prévu pour une seule instance de l'application.
+ */
+@Service
+public class OutboxDispatcher {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private INotification notificationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${outbox.coalesce-window-ms:2000}")
+    private long coalesceWindowMs;
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval-ms:1000}")
+    public void dispatchPending() {
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findPending(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!dispatchBatch(batch)) {
+                // Des échecs : les événements restants seront repris au prochain cycle
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private boolean dispatchBatch(List<OutboxEvent> batch) {
+        Set<Long> blockedRecipients = new HashSet<>();
+        boolean deferred = false;
+        LocalDateTime windowStart = LocalDateTime.now().minusNanos(coalesceWindowMs * 1_000_000);
+
+        for (List<OutboxEvent> group : groupForCoalescing(batch)) {
+            OutboxEvent first = group.get(0);
+            OutboxEvent latest = group.get(group.size() - 1);
+            if (blockedRecipients.contains(first.getRecipientId())) {
+                continue;
+            }
+            if (first.getSourceKey() != null && first.getCreatedAt() != null && first.getCreatedAt().isAfter(windowStart)) {
+                // Fenêtre de regroupement pas encore écoulée : d'autres événements de la même source peuvent arriver.
+                // Le destinataire est bloqué pour ce cycle, sinon ses événements suivants passeraient avant le groupe
+                deferred = true;
+                blockedRecipients.add(first.getRecipientId());
+                continue;
+            }
+            List<Long> ids = group.stream().map(OutboxEvent::getId).toList();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    notificationService.createOrCoalesceNotification(
+                            latest.getRecipientId(),
+                            latest.getMessage(),
+                            latest.getEventType(),
+                            latest.getPublicationId(),
+                            latest.getSourceKey(),
+                            group.size()
+                    );
+                    outboxEventRepository.markAllProcessed(ids, LocalDateTime.now());
+                });
+            } catch (Exception e) {
+                blockedRecipients.add(first.getRecipientId());
+                String error = e.getMessage() != null && e.getMessage().length() > 500
+                        ? e.getMessage().substring(0, 500)
+                        : e.getMessage();
+                for (OutboxEvent event : group) {
+                    outboxEventRepository.recordFailure(event.getId(), error, maxAttempts);
+                }
+                System.err.println("❌ Échec de l'envoi de l'événement outbox " + first.getId()
+                        + " (tentative " + (first.getAttempts() + 1) + "/" + maxAttempts + "): " + e.getMessage());
+            }
+        }
+        return blockedRecipients.isEmpty() && !deferred;
+    }
+
+    /**
+     * Regroupe les événements de même destinataire, type et source (sourceKey non null),
+     * dans l'ordre de leur première occurrence. Les autres événements restent seuls.
+     */
+    private Collection<List<OutboxEvent>> groupForCoalescing(List<OutboxEvent> batch) {
+        Map<String, List<OutboxEvent>> groups = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            String key = event.getSourceKey() == null
+                    ? "event:" + event.getId()
+                    : event.getRecipientId() + "|" + event.getEventType() + "|" + event.getSourceKey();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+        }
+        return groups.values();
+    }
+
+    /**
+     * Supprime les événements déjà traités, toutes les heures.
+     */
+    @Scheduled(fixedRate = 3600000)
+    public void purgeProcessed() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            System.out.println("🧹 " + deleted + " événement(s) outbox traité(s) supprimé(s)");
+        }
+    }
+}
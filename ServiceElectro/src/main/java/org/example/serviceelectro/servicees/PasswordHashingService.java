@@ -0,0 +1,110 @@
+package org.example.serviceelectro.servicees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calculs BCrypt (login, création de compte) sur un pool borné au nombre de cœurs avec une file limitée :
+ * un afflux de tentatives de connexion ne peut plus occuper tous les threads Tomcat ni tous les cœurs.
+ * File pleine ou attente trop longue : 503, le reste de l'API continue de répondre.
+ * Métriques : auth.password.hash (tag operation), auth.password.rejected (tag reason), auth.password.queue.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 : nombre de cœurs disponibles
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        meterRegistry.gauge("auth.password.queue", executor, e -> e.getQueue().size());
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run("matches", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return run("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> T run(String operation, Callable<T> task) {
+        Timer timer = meterRegistry.timer("auth.password.hash", "operation", operation);
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            throw busy("queue-full");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy("timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw busy("interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Erreur lors du calcul du mot de passe", e.getCause());
+        }
+    }
+
+    private ResponseStatusException busy(String reason) {
+        meterRegistry.counter("auth.password.rejected", "reason", reason).increment();
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Serveur momentanément surchargé, veuillez réessayer dans quelques instants");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.serviceelectro.servicees;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Présence des utilisateurs, gardée uniquement en mémoire : dernier signe de vie par utilisateur
+ * (connexion, POST /api/presence/heartbeat). Sans signe de vie pendant presence.timeout-ms,
+ * l'utilisateur est considéré hors ligne et retiré par le balayage périodique.
+ * Rien n'est écrit dans la table utilisateur (la colonne is_online n'est plus utilisée).
+ */
+@Service
+public class PresenceService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${presence.timeout-ms:90000}")
+    private long timeoutMs;
+
+    // Utilisateur -> dernier signe de vie (ms)
+    private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gaugeMapSize("presence.online", List.of(), lastSeen);
+    }
+
+    public void heartbeat(Long userId) {
+        if (userId != null) {
+            lastSeen.put(userId, System.currentTimeMillis());
+        }
+    }
+
+    public void markOffline(Long userId) {
+        if (userId != null) {
+            lastSeen.remove(userId);
+        }
+    }
+
+    public boolean isOnline(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        Long seen = lastSeen.get(userId);
+        return seen != null && seen > System.currentTimeMillis() - timeoutMs;
+    }
+
+    /**
+     * Statut de plusieurs utilisateurs en un appel (listes d'utilisateurs, conversations).
+     */
+    public Map<Long, Boolean> getOnlineStatus(Collection<Long> userIds) {
+        Map<Long, Boolean> status = new LinkedHashMap<>();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                status.put(userId, isOnline(userId));
+            }
+        }
+        return status;
+    }
+
+    @Scheduled(fixedDelayString = "${presence.sweep-interval-ms:15000}")
+    public void sweep() {
+        long threshold = System.currentTimeMillis() - timeoutMs;
+        lastSeen.values().removeIf(seen -> seen <= threshold);
+    }
+}
@@ -32,7 +32,10 @@ public class PubImpl implements Ipub {
     private AutoVerificationService autoVerificationService;
 
     @Autowired(required = false)
-    private INotification notificationService;
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
 
 
     @Override
@@ -193,6 +196,10 @@ public class PubImpl implements Ipub {
         // Supprimer la publication (utiliser delete() au lieu de deleteById() pour mieux gérer les relations)
         // Laisser les exceptions se propager pour que le GlobalExceptionHandler les gère
         publicationRepository.delete(publication);
+
+        // Notifications et articles de panier supprimés pour des utilisateurs inconnus ici : recharger les compteurs
+        unreadCounterStore.evictAllAfterCommit(UnreadCounterStore.Counter.NOTIFICATIONS);
+        unreadCounterStore.evictAllAfterCommit(UnreadCounterStore.Counter.CART_ITEMS);
     }
 
     public List<Publication> findByUtilisateurId(Long utilisateurId) {
@@ -218,11 +225,11 @@ public class PubImpl implements Ipub {
         Publication savedPublication = publicationRepository.save(publication);
 
         // Créer une notification pour l'utilisateur propriétaire de la publication
-        if (notificationService != null && savedPublication.getUtilisateur() != null) {
+        if (notificationOutbox != null && savedPublication.getUtilisateur() != null) {
             try {
                 String message = String.format("Votre publication \"%s\" a été approuvée et est maintenant visible sur le site.", 
                     savedPublication.getTitle());
-                notificationService.createNotification(
+                notificationOutbox.enqueue(
                     savedPublication.getUtilisateur().getId(),
                     message,
                     "PUBLICATION_APPROVED",
@@ -253,11 +260,11 @@ public class PubImpl implements Ipub {
         Publication savedPublication = publicationRepository.save(publication);
 
         // Créer une notification si la publication est mise au catalogue (changement d'état de false à true)
-        if (notificationService != null && savedPublication.getUtilisateur() != null && inCatalog && !wasInCatalog) {
+        if (notificationOutbox != null && savedPublication.getUtilisateur() != null && inCatalog && !wasInCatalog) {
             try {
                 String message = String.format("Votre publication \"%s\" a été ajoutée au catalogue et est maintenant visible sur la page du catalogue.", 
                     savedPublication.getTitle());
-                notificationService.createNotification(
+                notificationOutbox.enqueue(
                     savedPublication.getUtilisateur().getId(),
                     message,
                     "PUBLICATION_IN_CATALOG",
@@ -287,11 +294,11 @@ public class PubImpl implements Ipub {
         Publication savedPublication = publicationRepository.save(publication);
 
         // Créer une notification si la publication est mise dans les publications (changement d'état de false à true)
-        if (notificationService != null && savedPublication.getUtilisateur() != null && inPublications && !wasInPublications) {
+        if (notificationOutbox != null && savedPublication.getUtilisateur() != null && inPublications && !wasInPublications) {
             try {
                 String message = String.format("Votre publication \"%s\" a été ajoutée à la page des publications et est maintenant visible sur la page /publications.", 
                     savedPublication.getTitle());
-                notificationService.createNotification(
+                notificationOutbox.enqueue(
                     savedPublication.getUtilisateur().getId(),
                     message,
                     "PUBLICATION_IN_PUBLICATIONS",
@@ -0,0 +1,144 @@
+package org.example.serviceelectro.servicees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Refresh tokens opaques à rotation : chaque utilisation en délivre un nouveau et invalide l'ancien.
+ * Seule l'empreinte SHA-256 est stockée. Tous les tokens issus d'une même connexion forment une famille :
+ * la réutilisation d'un token déjà consommé (vol probable) révoque toute la famille.
+ */
+@Service
+public class RefreshTokenService {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${jwt.refresh-expiration-ms:1209600000}") // 14 jours
+    private long refreshExpirationMs;
+
+    public record Rotation(Long userId, String refreshToken) {
+    }
+
+    private record StoredToken(Long id, Long userId, String familyId, Timestamp expiresAt, Timestamp revokedAt) {
+    }
+
+    /**
+     * Nouveau refresh token (nouvelle famille) pour une connexion.
+     */
+    public String issue(Long userId) {
+        return insert(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consomme le refresh token et en délivre un nouveau de la même famille.
+     * Pas de rollback sur IllegalArgumentException : la révocation de la famille en cas de réutilisation
+     * doit être validée même si l'appel échoue (elle ne peut pas passer par une transaction séparée,
+     * la ligne du token étant verrouillée par le SELECT ... FOR UPDATE de cette transaction).
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public Rotation rotate(String refreshToken) {
+        StoredToken stored = findForUpdate(refreshToken);
+        if (stored == null) {
+            throw new IllegalArgumentException("Refresh token invalide");
+        }
+        if (stored.revokedAt() != null) {
+            // Token déjà utilisé : la famille entière est compromise
+            revokeFamily(stored.familyId());
+            System.err.println("⚠️ Réutilisation d'un refresh token détectée pour l'utilisateur " + stored.userId());
+            throw new IllegalArgumentException("Refresh token invalide");
+        }
+        if (stored.expiresAt().getTime() <= System.currentTimeMillis()) {
+            throw new IllegalArgumentException("Refresh token expiré, veuillez vous reconnecter");
+        }
+
+        jdbcTemplate.update("UPDATE refresh_token SET revoked_at = NOW() WHERE id = ?", stored.id());
+        return new Rotation(stored.userId(), insert(stored.userId(), stored.familyId()));
+    }
+
+    /**
+     * Déconnexion : révoque la famille du refresh token présenté.
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        List<String> families = jdbcTemplate.queryForList(
+                "SELECT family_id FROM refresh_token WHERE token_hash = ?", String.class, hash(refreshToken));
+        families.forEach(this::revokeFamily);
+    }
+
+    /**
+     * Révoque toutes les familles de l'utilisateur (changement de rôle) : il devra se reconnecter.
+     */
+    public void revokeAllForUser(Long userId) {
+        jdbcTemplate.update("UPDATE refresh_token SET revoked_at = NOW() WHERE user_id = ? AND revoked_at IS NULL",
+                userId);
+    }
+
+    // Tokens expirés depuis plus d'un jour (gardés un jour pour détecter une réutilisation tardive)
+    @Scheduled(cron = "${jwt.refresh-cleanup.cron:0 45 4 * * *}")
+    public void purgeExpired() {
+        try {
+            int deleted = jdbcTemplate.update(
+                    "DELETE FROM refresh_token WHERE expires_at < NOW() - INTERVAL 1 DAY LIMIT 10000");
+            if (deleted > 0) {
+                System.out.println("🧹 " + deleted + " refresh token(s) expiré(s) supprimé(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Erreur lors de la purge des refresh tokens: " + e.getMessage());
+        }
+    }
+
+    private void revokeFamily(String familyId) {
+        jdbcTemplate.update("UPDATE refresh_token SET revoked_at = NOW() WHERE family_id = ? AND revoked_at IS NULL",
+                familyId);
+    }
+
+    private StoredToken findForUpdate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return null;
+        }
+        List<StoredToken> rows = jdbcTemplate.query(
+                "SELECT id, user_id, family_id, expires_at, revoked_at FROM refresh_token WHERE token_hash = ? FOR UPDATE",
+                (rs, rowNum) -> new StoredToken(rs.getLong("id"), rs.getLong("user_id"), rs.getString("family_id"),
+                        rs.getTimestamp("expires_at"), rs.getTimestamp("revoked_at")),
+                hash(refreshToken));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private String insert(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        jdbcTemplate.update("INSERT INTO refresh_token (user_id, token_hash, family_id, expires_at) VALUES (?, ?, ?, ?)",
+                userId, hash(token), familyId, new Timestamp(System.currentTimeMillis() + refreshExpirationMs));
+        return token;
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
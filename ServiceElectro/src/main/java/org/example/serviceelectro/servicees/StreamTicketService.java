@@ -0,0 +1,60 @@
+package org.example.serviceelectro.servicees;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tickets d'ouverture du flux SSE des notifications. EventSource ne peut pas envoyer d'en-tête :
+ * au lieu du token d'accès dans l'URL (visible dans les logs des proxys et l'historique du navigateur),
+ * le client demande un ticket opaque avec son token, puis ouvre /api/notifications/stream?ticket=...
+ * Un ticket n'est valable qu'une fois et pendant notifications.stream.ticket-ttl-ms.
+ * Gardés en mémoire, comme les flux eux-mêmes (NotificationStreamService).
+ */
+@Service
+public class StreamTicketService {
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${notifications.stream.ticket-ttl-ms:30000}")
+    private long ticketTtlMs;
+
+    private record Ticket(Long userId, long expiresAtMillis) {
+    }
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(userId, System.currentTimeMillis() + ticketTtlMs));
+        return ticket;
+    }
+
+    /**
+     * Consomme le ticket : l'utilisateur s'il est valide, vide s'il est inconnu, déjà utilisé ou expiré.
+     */
+    public Optional<Long> redeem(String ticket) {
+        if (ticket == null || ticket.isBlank()) {
+            return Optional.empty();
+        }
+        Ticket stored = tickets.remove(ticket);
+        if (stored == null || stored.expiresAtMillis() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(stored.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.stream.ticket-ttl-ms:30000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAtMillis() <= now);
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.serviceelectro.servicees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens révoqués (déconnexion), identifiés par leur jti, et tokens d'un utilisateur émis avant
+ * un changement de rôle (ils portent l'ancien rôle dans leurs claims).
+ * Un token sans jti n'est pas révocable : il est toujours refusé.
+ * La vérification d'une requête ne lit que l'ensemble en mémoire ; la table revoked_token est relue
+ * toutes les quelques secondes pour prendre en compte les révocations faites par les autres instances.
+ * Un jti n'est gardé que jusqu'à l'expiration du token : l'ensemble reste de la taille
+ * des révocations des dernières minutes (durée de vie d'un access token).
+ */
+@Service
+public class TokenRevocationService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // jti -> expiration du token (ms)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private record Cutoff(long notBeforeMillis, long expiresAtMillis) {
+    }
+
+    // Email (en minuscules) -> tokens émis jusqu'à cette date refusés
+    private final Map<String, Cutoff> cutoffs = new ConcurrentHashMap<>();
+
+    public boolean isRevoked(String jti, String email, long issuedAtMillis) {
+        if (jti == null || revoked.containsKey(jti)) {
+            return true;
+        }
+        Cutoff cutoff = email != null ? cutoffs.get(email.toLowerCase()) : null;
+        // iat est à la seconde : un token émis dans la seconde du changement est refusé lui aussi
+        return cutoff != null && issuedAtMillis <= cutoff.notBeforeMillis();
+    }
+
+    /**
+     * Révoque le token localement tout de suite, et en base pour les autres instances.
+     */
+    public void revoke(String jti, long expiresAtMillis) {
+        if (jti == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        revoked.put(jti, expiresAtMillis);
+        jdbcTemplate.update("INSERT IGNORE INTO revoked_token (jti, expires_at) VALUES (?, ?)",
+                jti, new Timestamp(expiresAtMillis));
+    }
+
+    /**
+     * Refuse tous les access tokens de l'utilisateur émis jusqu'à maintenant. La date est gardée
+     * pendant {@code tokenLifetimeMillis} : au-delà, ces tokens ont de toute façon expiré.
+     */
+    public void revokeIssuedBefore(String email, long tokenLifetimeMillis) {
+        if (email == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Cutoff cutoff = new Cutoff(now, now + tokenLifetimeMillis);
+        cutoffs.put(email.toLowerCase(), cutoff);
+        jdbcTemplate.update("INSERT INTO token_cutoff (email, not_before, expires_at) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE not_before = VALUES(not_before), expires_at = VALUES(expires_at)",
+                email.toLowerCase(), new Timestamp(cutoff.notBeforeMillis()), new Timestamp(cutoff.expiresAtMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        try {
+            // Fusion sans remplacement : une révocation locale plus récente que la lecture n'est jamais perdue
+            jdbcTemplate.query("SELECT jti, expires_at FROM revoked_token WHERE expires_at > ?",
+                    rs -> {
+                        revoked.put(rs.getString("jti"), rs.getTimestamp("expires_at").getTime());
+                    },
+                    new Timestamp(now));
+            jdbcTemplate.update("DELETE FROM revoked_token WHERE expires_at <= ?", new Timestamp(now));
+            jdbcTemplate.query("SELECT email, not_before, expires_at FROM token_cutoff WHERE expires_at > ?",
+                    rs -> {
+                        Cutoff cutoff = new Cutoff(rs.getTimestamp("not_before").getTime(),
+                                rs.getTimestamp("expires_at").getTime());
+                        cutoffs.merge(rs.getString("email"), cutoff,
+                                (local, stored) -> local.notBeforeMillis() >= stored.notBeforeMillis() ? local : stored);
+                    },
+                    new Timestamp(now));
+            jdbcTemplate.update("DELETE FROM token_cutoff WHERE expires_at <= ?", new Timestamp(now));
+        } catch (Exception e) {
+            System.err.println("⚠️ Synchronisation des tokens révoqués impossible: " + e.getMessage());
+        }
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        cutoffs.values().removeIf(cutoff -> cutoff.expiresAtMillis() <= now);
+    }
+}
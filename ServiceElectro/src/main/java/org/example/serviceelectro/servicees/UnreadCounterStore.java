@@ -0,0 +1,185 @@
+package org.example.serviceelectro.servicees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Compteurs par utilisateur servis aux badges du frontend (notifications non lues,
+ * messages non lus, articles du panier) sans requête SQL à chaque poll.
+ * Un compteur est chargé depuis la base au premier accès, puis ajusté après chaque commit
+ * par les services qui modifient les données. Quand la variation exacte n'est pas connue
+ * (tout marquer comme lu, suppressions en masse), le compteur est simplement évincé.
+ * Une réconciliation périodique corrige les écarts éventuels avec la base.
+ * Chaque compteur garde au plus counters.max-size utilisateurs : au-delà, il est vidé et rechargé à la demande.
+ */
+@Service
+public class UnreadCounterStore {
+
+    public enum Counter {
+        NOTIFICATIONS("SELECT user_id, COUNT(*) FROM notification WHERE is_read = FALSE AND user_id IN (%s) GROUP BY user_id"),
+        MESSAGES("SELECT receiver_id, COUNT(*) FROM message WHERE is_read = FALSE AND receiver_id IN (%s) GROUP BY receiver_id"),
+        CART_ITEMS("SELECT c.user_id, COUNT(*) FROM cart_item ci JOIN cart c ON c.id = ci.cart_id " +
+                "WHERE c.user_id IN (%s) GROUP BY c.user_id");
+
+        private final String reconcileQuery;
+
+        Counter(String reconcileQuery) {
+            this.reconcileQuery = reconcileQuery;
+        }
+    }
+
+    private static final int RECONCILE_CHUNK_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${counters.max-size:10000}")
+    private int maxSize;
+
+    private final Map<Counter, Map<Long, AtomicLong>> counters = new EnumMap<>(Counter.class);
+
+    public UnreadCounterStore() {
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Valeur du compteur, chargée avec {@code loader} si elle n'est pas encore en mémoire.
+     */
+    public long get(Counter counter, Long userId, LongSupplier loader) {
+        Map<Long, AtomicLong> values = counters.get(counter);
+        AtomicLong value = values.get(userId);
+        if (value == null) {
+            // Chargement hors du verrou de la map : une requête SQL ne doit pas bloquer les autres utilisateurs
+            AtomicLong loaded = new AtomicLong(loader.getAsLong());
+            if (values.size() >= maxSize) {
+                values.clear();
+            }
+            AtomicLong existing = values.putIfAbsent(userId, loaded);
+            value = existing != null ? existing : loaded;
+        }
+        return value.get();
+    }
+
+    /**
+     * Ajoute {@code delta} au compteur après le commit de la transaction courante.
+     * Sans effet si le compteur n'est pas encore chargé : il le sera depuis la base.
+     */
+    public void adjustAfterCommit(Counter counter, Long userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        runAfterCommit(() -> {
+            AtomicLong value = counters.get(counter).get(userId);
+            if (value != null) {
+                value.updateAndGet(current -> Math.max(0, current + delta));
+            }
+        });
+    }
+
+    /**
+     * Oublie le compteur après le commit : il sera rechargé depuis la base au prochain accès.
+     */
+    public void evictAfterCommit(Counter counter, Long userId) {
+        if (userId != null) {
+            runAfterCommit(() -> counters.get(counter).remove(userId));
+        }
+    }
+
+    /**
+     * Oublie tous les compteurs de l'utilisateur après le commit (suppression du compte).
+     */
+    public void evictUserAfterCommit(Long userId) {
+        if (userId != null) {
+            runAfterCommit(() -> counters.values().forEach(values -> values.remove(userId)));
+        }
+    }
+
+    public void evictAllAfterCommit(Counter counter) {
+        runAfterCommit(() -> counters.get(counter).clear());
+    }
+
+    /**
+     * Compare les compteurs en mémoire avec la base (requêtes GROUP BY par lots d'utilisateurs)
+     * et corrige ceux qui ont dérivé.
+     */
+    @Scheduled(fixedDelayString = "${counters.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        for (Counter counter : Counter.values()) {
+            try {
+                int corrected = reconcile(counter);
+                if (corrected > 0) {
+                    System.out.println("⚠️ " + corrected + " compteur(s) " + counter + " corrigé(s) lors de la réconciliation");
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Erreur lors de la réconciliation des compteurs " + counter + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private int reconcile(Counter counter) {
+        Map<Long, AtomicLong> values = counters.get(counter);
+        List<Long> userIds = new ArrayList<>(values.keySet());
+        int corrected = 0;
+
+        for (int from = 0; from < userIds.size(); from += RECONCILE_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + RECONCILE_CHUNK_SIZE, userIds.size()));
+
+            // Valeurs relevées avant la requête : un compteur modifié entre-temps n'est pas écrasé
+            Map<Long, Long> before = new HashMap<>();
+            for (Long userId : chunk) {
+                AtomicLong value = values.get(userId);
+                if (value != null) {
+                    before.put(userId, value.get());
+                }
+            }
+
+            Map<Long, Long> actual = new HashMap<>();
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(String.format(counter.reconcileQuery, placeholders),
+                    rs -> {
+                        actual.put(rs.getLong(1), rs.getLong(2));
+                    },
+                    chunk.toArray());
+
+            for (Map.Entry<Long, Long> entry : before.entrySet()) {
+                long expected = actual.getOrDefault(entry.getKey(), 0L);
+                AtomicLong value = values.get(entry.getKey());
+                if (value != null && entry.getValue() != expected
+                        && value.compareAndSet(entry.getValue(), expected)) {
+                    corrected++;
+                }
+            }
+        }
+        return corrected;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
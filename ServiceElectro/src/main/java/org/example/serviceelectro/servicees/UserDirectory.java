@@ -0,0 +1,197 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.dto.UserSummary;
+import org.example.serviceelectro.dto.UtilisateurDTO;
+import org.example.serviceelectro.mapper.UtilisateurMapper;
+import org.example.serviceelectro.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Annuaire des utilisateurs indexé par rôle, gardé en mémoire.
+ * Évite de charger toute la table utilisateur à chaque appel de /api/messages/admin-id
+ * ou de la liste des utilisateurs côté admin. Le cache est invalidé par UserImpl
+ * lors de la création, suppression ou modification d'un utilisateur.
+ * Les résumés par email et par ID (identité de l'appelant, expéditeur, auteur...) expirent en plus
+ * après user-directory.summary-ttl-ms, pour les modifications faites par une autre instance.
+ */
+@Service
+public class UserDirectory {
+
+    private static final String ADMIN_ROLE = "ADMIN";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UtilisateurMapper utilisateurMapper;
+
+    // Incrémenté à chaque invalidation : un chargement commencé avant n'est pas publié
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile List<Long> adminIds;
+    private volatile List<UtilisateurDTO> userSummaries;
+
+    @Value("${user-directory.summary-ttl-ms:30000}")
+    private long summaryTtlMs;
+
+    @Value("${user-directory.summary-max-size:10000}")
+    private int summaryMaxSize;
+
+    private record CachedSummary(UserSummary summary, long loadedAt) {
+    }
+
+    // Email (en minuscules) -> résumé, pour résoudre l'utilisateur du JWT sans charger l'entité
+    private final Map<String, CachedSummary> summariesByEmail = new ConcurrentHashMap<>();
+    private final Map<Long, CachedSummary> summariesById = new ConcurrentHashMap<>();
+
+    public Optional<Long> getAdminId() {
+        List<Long> ids = getAdminIds();
+        return ids.isEmpty() ? Optional.empty() : Optional.of(ids.get(0));
+    }
+
+    public List<Long> getAdminIds() {
+        List<Long> ids = adminIds;
+        if (ids == null) {
+            long loadVersion = version.get();
+            ids = List.copyOf(userRepository.findIdsByRole(ADMIN_ROLE));
+            adminIds = ids;
+            if (version.get() != loadVersion) {
+                adminIds = null;
+            }
+        }
+        return ids;
+    }
+
+    public boolean isAdmin(Long userId) {
+        return userId != null && getAdminIds().contains(userId);
+    }
+
+    /**
+     * Résumés (sans mot de passe) de tous les utilisateurs non administrateurs,
+     * avec le statut en ligne du moment (non mis en cache).
+     */
+    public List<UtilisateurDTO> getUserSummaries() {
+        return loadUserSummaries().stream().map(utilisateurMapper::withPresence).toList();
+    }
+
+    private List<UtilisateurDTO> loadUserSummaries() {
+        List<UtilisateurDTO> summaries = userSummaries;
+        if (summaries == null) {
+            long loadVersion = version.get();
+            summaries = userRepository.findByRoleNot(ADMIN_ROLE).stream()
+                    .map(utilisateur -> {
+                        UtilisateurDTO dto = utilisateurMapper.toDTO(utilisateur);
+                        dto.setPassword(null);
+                        return dto;
+                    })
+                    .collect(Collectors.toUnmodifiableList());
+            userSummaries = summaries;
+            if (version.get() != loadVersion) {
+                userSummaries = null;
+            }
+        }
+        return summaries;
+    }
+
+    public Optional<Long> getUserIdByEmail(String email) {
+        return getSummaryByEmail(email).map(UserSummary::getId);
+    }
+
+    public Optional<UserSummary> getSummaryByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        String key = email.toLowerCase().trim();
+        CachedSummary cached = summariesByEmail.get(key);
+        if (cached != null && !isExpired(cached)) {
+            return Optional.of(cached.summary());
+        }
+        long loadVersion = version.get();
+        Optional<UserSummary> loaded = userRepository.findSummaryByEmail(key);
+        loaded.ifPresent(summary -> cacheSummary(summary, loadVersion));
+        return loaded;
+    }
+
+    public Optional<UserSummary> getSummaryById(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        CachedSummary cached = summariesById.get(userId);
+        if (cached != null && !isExpired(cached)) {
+            return Optional.of(cached.summary());
+        }
+        long loadVersion = version.get();
+        Optional<UserSummary> loaded = userRepository.findSummaryById(userId);
+        loaded.ifPresent(summary -> cacheSummary(summary, loadVersion));
+        return loaded;
+    }
+
+    private boolean isExpired(CachedSummary cached) {
+        return cached.loadedAt() < System.currentTimeMillis() - summaryTtlMs;
+    }
+
+    private void cacheSummary(UserSummary summary, long loadVersion) {
+        if (summariesById.size() >= summaryMaxSize) {
+            summariesById.clear();
+            summariesByEmail.clear();
+        }
+        CachedSummary cached = new CachedSummary(summary, System.currentTimeMillis());
+        String emailKey = summary.getEmail() != null ? summary.getEmail().toLowerCase().trim() : null;
+        summariesById.put(summary.getId(), cached);
+        if (emailKey != null) {
+            summariesByEmail.put(emailKey, cached);
+        }
+        // Invalidation pendant le chargement : le résumé lu n'est pas gardé
+        if (version.get() != loadVersion) {
+            summariesById.remove(summary.getId());
+            if (emailKey != null) {
+                summariesByEmail.remove(emailKey);
+            }
+        }
+    }
+
+    /**
+     * Oublie seulement la liste des utilisateurs (elle contient la dernière connexion) ;
+     * les résumés par email et par ID restent en cache.
+     */
+    public void invalidateUserSummaries() {
+        version.incrementAndGet();
+        userSummaries = null;
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        adminIds = null;
+        userSummaries = null;
+        summariesByEmail.clear();
+        summariesById.clear();
+    }
+
+    /**
+     * Invalide après le commit de la transaction en cours : invalider avant laisserait une autre
+     * requête recharger puis garder en cache l'état pas encore commité.
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+}
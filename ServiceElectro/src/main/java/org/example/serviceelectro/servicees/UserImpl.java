@@ -1,12 +1,15 @@
 package org.example.serviceelectro.servicees;
 
+import org.example.serviceelectro.config.JwtUtil;
 import org.example.serviceelectro.entities.Utilisateur;
+import org.example.serviceelectro.repository.ArchivedMessageRepository;
 import org.example.serviceelectro.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -16,7 +19,31 @@ public class UserImpl implements Iuserr{
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
 
     @Override
     public Utilisateur creatCompte (Utilisateur utilisateur) {
@@ -31,7 +58,7 @@ public class UserImpl implements Iuserr{
 
         // Hasher le mot de passe
         if (utilisateur.getPassword() != null && !utilisateur.getPassword().isEmpty()) {
-            utilisateur.setPassword(passwordEncoder.encode(utilisateur.getPassword()));
+            utilisateur.setPassword(passwordHashingService.encode(utilisateur.getPassword()));
         } else {
             throw new IllegalArgumentException("Le mot de passe est requis");
         }
@@ -41,7 +68,9 @@ public class UserImpl implements Iuserr{
             utilisateur.setRole("USER");
         }
 
-        return userRepository.save(utilisateur);
+        Utilisateur saved = userRepository.save(utilisateur);
+        userDirectory.invalidate();
+        return saved;
     }
 
     @Override
@@ -58,18 +87,39 @@ public class UserImpl implements Iuserr{
         return userRepository.findById(id);
     }
 
+    // Référence sans SELECT, pour une association (l'existence doit déjà être vérifiée, ex. via UserDirectory)
+    public Utilisateur getReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
+    @Transactional
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new IllegalArgumentException("Utilisateur non trouvé");
         }
         userRepository.deleteById(id);
+        // L'archive des messages n'a pas de clé étrangère : sans ce nettoyage elle garderait
+        // des messages dont l'expéditeur ou le destinataire n'existe plus
+        archivedMessageRepository.deleteByParticipant(id);
+        messageSearchIndex.removeParticipantAfterCommit(id);
+        unreadCounterStore.evictUserAfterCommit(id);
+        userDirectory.invalidateAfterCommit();
     }
 
     public Utilisateur updateUser(Utilisateur utilisateur) {
         if (!userRepository.existsById(utilisateur.getId())) {
             throw new IllegalArgumentException("Utilisateur non trouvé");
         }
-        return userRepository.save(utilisateur);
+        String storedRole = userRepository.findStoredRoleById(utilisateur.getId()).orElse(null);
+        // Le rôle ou le profil peut avoir changé : l'annuaire doit être rechargé
+        Utilisateur saved = userRepository.save(utilisateur);
+        userDirectory.invalidate();
+        if (!Objects.equals(storedRole, saved.getRole())) {
+            // Les tokens existants portent l'ancien rôle : reconnexion obligatoire
+            refreshTokenService.revokeAllForUser(saved.getId());
+            tokenRevocationService.revokeIssuedBefore(saved.getEmail(), jwtUtil.getExpirationMillis());
+        }
+        return saved;
     }
     
     public Utilisateur updateProfile(Long userId, String phone, String address) {
@@ -80,7 +130,9 @@ public class UserImpl implements Iuserr{
         Utilisateur user = userOpt.get();
         if (phone != null) user.setPhone(phone);
         if (address != null) user.setAddress(address);
-        return userRepository.save(user);
+        Utilisateur saved = userRepository.save(user);
+        userDirectory.invalidate();
+        return saved;
     }
     
     public Utilisateur updateProfilePhoto(Long userId, String photoUrl) {
@@ -90,18 +142,17 @@ public class UserImpl implements Iuserr{
         }
         Utilisateur user = userOpt.get();
         user.setProfilePhoto(photoUrl);
-        return userRepository.save(user);
+        Utilisateur saved = userRepository.save(user);
+        userDirectory.invalidate();
+        return saved;
     }
     
+    // Présence en mémoire uniquement (plus d'écriture de la ligne utilisateur)
     public void setUserOnline(Long userId, boolean isOnline) {
-        Optional<Utilisateur> userOpt = userRepository.findById(userId);
-        if (userOpt.isPresent()) {
-            Utilisateur user = userOpt.get();
-            user.setIsOnline(isOnline);
-            if (isOnline) {
-                user.setLastLogin(java.time.LocalDateTime.now());
-            }
-            userRepository.save(user);
+        if (isOnline) {
+            presenceService.heartbeat(userId);
+        } else {
+            presenceService.markOffline(userId);
         }
     }
 }
@@ -0,0 +1,72 @@
+package org.example.serviceelectro.servicees;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Verrous en mémoire par utilisateur, répartis sur un nombre fixe de bandes (stripes) :
+ * les opérations d'un même utilisateur s'exécutent l'une après l'autre, celles d'utilisateurs
+ * différents restent parallèles (sauf collision de bande, rare avec assez de bandes).
+ * Le verrou doit englober la transaction complète, commit compris.
+ */
+@Component
+public class UserLockStripes {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+
+    @Autowired
+    public UserLockStripes(@Value("${cart.lock.stripes:64}") int stripeCount,
+                           @Value("${cart.lock.timeout-ms:5000}") long timeoutMs) {
+        // Puissance de deux pour un simple masque de bits
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+    }
+
+    public <T> T callLocked(Long userId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(userId);
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Opération interrompue pour l'utilisateur " + userId);
+        }
+        if (!acquired) {
+            throw new IllegalStateException("Une autre opération est en cours pour l'utilisateur " + userId + ", réessayez");
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void runLocked(Long userId, Runnable action) {
+        callLocked(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private ReentrantLock stripeFor(Long userId) {
+        int hash = userId == null ? 0 : Long.hashCode(userId);
+        hash ^= (hash >>> 16);
+        hash *= 0x45d9f3b;
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,20 @@
+-- Archive froide des conversations inactives (remplie par MessageArchiveJob)
+-- Pas de clé étrangère : l'archive reste lisible même si un utilisateur est supprimé.
+
+CREATE TABLE IF NOT EXISTS message_archive (
+    id BIGINT PRIMARY KEY,
+    content VARCHAR(2000),
+    sender_id BIGINT NOT NULL,
+    receiver_id BIGINT NOT NULL,
+    is_read BOOLEAN NOT NULL DEFAULT FALSE,
+    file_url VARCHAR(500),
+    file_name VARCHAR(255),
+    file_type VARCHAR(100),
+    latitude DOUBLE,
+    longitude DOUBLE,
+    location_name VARCHAR(500),
+    created_at TIMESTAMP NULL DEFAULT NULL,
+    updated_at TIMESTAMP NULL DEFAULT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_archive_conversation (sender_id, receiver_id, created_at)
+) ENGINE=InnoDB ROW_FORMAT=COMPRESSED DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
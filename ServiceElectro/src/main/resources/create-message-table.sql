@@ -22,7 +22,8 @@ CREATE TABLE IF NOT EXISTS message (
     FOREIGN KEY (receiver_id) REFERENCES utilisateur(id) ON DELETE CASCADE,
     INDEX idx_sender (sender_id),
     INDEX idx_receiver (receiver_id),
-    INDEX idx_created_at (created_at)
+    INDEX idx_created_at (created_at),
+    INDEX idx_conversation (sender_id, receiver_id, created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Vérifier que la table a été créée
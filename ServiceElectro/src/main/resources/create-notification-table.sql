@@ -5,11 +5,17 @@ CREATE TABLE IF NOT EXISTS notification (
     is_read BOOLEAN NOT NULL DEFAULT FALSE,
     notification_type VARCHAR(50),
     publication_id BIGINT,
+    source_key VARCHAR(100),
+    occurrences INT DEFAULT 1,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL DEFAULT NULL,
     FOREIGN KEY (user_id) REFERENCES utilisateur(id) ON DELETE CASCADE,
     FOREIGN KEY (publication_id) REFERENCES publication(id) ON DELETE SET NULL,
     INDEX idx_user_id (user_id),
     INDEX idx_is_read (is_read),
-    INDEX idx_created_at (created_at)
+    INDEX idx_created_at (created_at),
+    INDEX idx_retention (is_read, notification_type, created_at),
+    INDEX idx_coalesce (user_id, notification_type, source_key, is_read),
+    INDEX idx_user_created (user_id, created_at, id)
 );
 
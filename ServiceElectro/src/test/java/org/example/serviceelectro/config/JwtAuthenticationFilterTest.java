@@ -0,0 +1,190 @@
+package org.example.serviceelectro.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.serviceelectro.servicees.TokenRevocationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Authentification par le filtre JWT (une seule vérification, cache des claims),
+ * et benchmark du filtre avec -Dbenchmark=true.
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "testSecretKey12345678901234567890123456789012345678901234567890";
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(86_400_000L);
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void validTokenAuthenticatesWithRole() throws Exception {
+        String token = jwtUtil.generateToken("user@example.com", "ADMIN");
+
+        Authentication authentication = filterWith(token);
+
+        assertNotNull(authentication);
+        assertEquals("user@example.com", authentication.getName());
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void tamperedOrExpiredTokensAreRejected() throws Exception {
+        String token = jwtUtil.generateToken("user@example.com", "USER");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertNull(filterWith(tampered));
+
+        JwtUtil expiring = newJwtUtil(-1_000L);
+        assertNull(expiring.parseAndValidate(expiring.generateToken("user@example.com", "USER")));
+    }
+
+    @Test
+    void repeatedTokenIsServedFromCache() {
+        String token = jwtUtil.generateToken("user@example.com", "USER");
+        JwtUtil.TokenClaims first = jwtUtil.parseAndValidate(token);
+        JwtUtil.TokenClaims second = jwtUtil.parseAndValidate(token);
+        assertNotNull(first);
+        // Même instance : aucune nouvelle analyse du token
+        assertSame(first, second);
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhenCached() throws Exception {
+        String token = jwtUtil.generateToken("user@example.com", "USER");
+        JwtUtil.TokenClaims claims = jwtUtil.parseAndValidate(token);
+        assertNotNull(claims);
+
+        TokenRevocationService revocation =
+                (TokenRevocationService) ReflectionTestUtils.getField(jwtUtil, "tokenRevocationService");
+        revocation.revoke(claims.jti(), claims.expiresAtMillis());
+
+        assertNull(jwtUtil.parseAndValidate(token));
+        assertNull(filterWith(token));
+    }
+
+    @Test
+    void tokenWithoutJtiIsRejected() {
+        String token = Jwts.builder()
+                .subject("user@example.com")
+                .claim("role", "USER")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertNull(jwtUtil.parseAndValidate(token));
+    }
+
+    @Test
+    void tokensIssuedBeforeRoleChangeAreRejected() {
+        String token = jwtUtil.generateToken("user@example.com", "USER");
+        String otherUser = jwtUtil.generateToken("other@example.com", "USER");
+        assertNotNull(jwtUtil.parseAndValidate(token));
+
+        TokenRevocationService revocation =
+                (TokenRevocationService) ReflectionTestUtils.getField(jwtUtil, "tokenRevocationService");
+        revocation.revokeIssuedBefore("User@Example.com", 60_000);
+
+        assertNull(jwtUtil.parseAndValidate(token));
+        assertNotNull(jwtUtil.parseAndValidate(otherUser));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void filterBenchmark() throws Exception {
+        String token = jwtUtil.generateToken("user@example.com", "USER");
+        int warmup = 20_000;
+        int iterations = 200_000;
+
+        // Ancien chemin : sujet, rôle puis validation, soit quatre analyses complètes,
+        // chacune avec une nouvelle clé et un nouveau parseur comme l'ancien JwtUtil
+        Runnable legacy = () -> {
+            String email = legacyClaims(token).getSubject();
+            legacyClaims(token).get("role", String.class);
+            if (email.equals(legacyClaims(token).getSubject())) {
+                legacyClaims(token).getExpiration().before(new Date());
+            }
+        };
+        Runnable filterCall = () -> {
+            try {
+                filterWith(token);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        System.out.printf("📊 Filtre JWT (%d itérations)%n", iterations);
+        System.out.printf("   ancien chemin (4 analyses)   : %d ns/op%n", measure(legacy, warmup, iterations));
+        System.out.printf("   filtre, token en cache       : %d ns/op%n", measure(filterCall, warmup, iterations));
+    }
+
+    private Authentication filterWith(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/me/badges");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private long measure(Runnable operation, int warmup, int iterations) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static JwtUtil newJwtUtil(long expirationMs) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expiration", expirationMs);
+        ReflectionTestUtils.setField(util, "claimsCacheMaxSize", 1000);
+        TokenRevocationService revocation = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocation, "jdbcTemplate", mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(util, "tokenRevocationService", revocation);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.serviceelectro.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.serviceelectro.servicees.AuthRateLimiter;
+import org.example.serviceelectro.servicees.TokenRevocationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Coût de la chaîne de sécurité seule (sans contrôleur) pour un fichier public servi par la voie rapide,
+ * comparé à une route publique passant par la chaîne principale avec le même en-tête Authorization.
+ * Contexte limité à la sécurité (pas de base de données) : lancer avec -Dbenchmark=true.
+ */
+@SpringJUnitWebConfig(SecurityFastLaneBenchmarkTest.SecurityOnlyConfig.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SecurityFastLaneBenchmarkTest {
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, CorsConfig.class, JwtAuthenticationFilter.class, JwtUtil.class,
+            AuthRateLimitFilter.class, AuthRateLimiter.class, TokenRevocationService.class})
+    static class SecurityOnlyConfig {
+
+        @Bean
+        JdbcTemplate jdbcTemplate() {
+            return mock(JdbcTemplate.class);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private FilterChainProxy filterChainProxy;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void fastLaneBenchmark() throws Exception {
+        String token = jwtUtil.generateToken("bench@example.com", "USER");
+        int warmup = 20_000;
+        int iterations = 200_000;
+
+        long fastLane = measure("/api/pub/files/photo.png", token, warmup, iterations);
+        long mainChain = measure("/api/pub/42", token, warmup, iterations);
+
+        System.out.printf("📊 Chaîne de sécurité (%d itérations)%n", iterations);
+        System.out.printf("   voie rapide  GET /api/pub/files/** : %d ns/op%n", fastLane);
+        System.out.printf("   chaîne principale GET /api/pub/{id} : %d ns/op%n", mainChain);
+    }
+
+    private long measure(String path, String token, int warmup, int iterations) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            filter(path, token);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            filter(path, token);
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private void filter(String path, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filterChainProxy.doFilter(request, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+    }
+}
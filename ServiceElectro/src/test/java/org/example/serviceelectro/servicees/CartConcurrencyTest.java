@@ -0,0 +1,107 @@
+package org.example.serviceelectro.servicees;
+
+import org.example.serviceelectro.dto.CartDTO;
+import org.example.serviceelectro.entities.Publication;
+import org.example.serviceelectro.entities.Utilisateur;
+import org.example.serviceelectro.repository.PublicationRepository;
+import org.example.serviceelectro.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ajouts simultanés du même article : une seule ligne et une quantité égale au nombre d'ajouts.
+ * Nécessite la base MySQL configurée : lancer avec -Dcart.concurrency-test=true.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "cart.concurrency-test", matches = "true")
+class CartConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 25;
+
+    @Autowired
+    private ICart cartService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PublicationRepository publicationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long publicationId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Utilisateur user = userRepository.save(Utilisateur.builder()
+                .username("cart-test-" + suffix)
+                .email("cart-test-" + suffix + "@example.com")
+                .password("x")
+                .role("USER")
+                .build());
+        Publication publication = publicationRepository.save(Publication.builder()
+                .title("Article test " + suffix)
+                .description("Test de concurrence du panier")
+                .price(10.0)
+                .utilisateur(user)
+                .build());
+        userId = user.getId();
+        publicationId = publication.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE ci FROM cart_item ci JOIN cart c ON ci.cart_id = c.id WHERE c.user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM cart WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM publication WHERE id = ?", publicationId);
+        jdbcTemplate.update("DELETE FROM utilisateur WHERE id = ?", userId);
+    }
+
+    @Test
+    void parallelAddsProduceSingleLineWithExactQuantity() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        cartService.addItemToCart(userId, publicationId, 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CartDTO cart = cartService.getCartView(userId);
+        assertEquals(1, cart.getItems().size());
+        assertEquals(THREADS * ADDS_PER_THREAD, cart.getItems().get(0).getQuantity());
+        assertEquals(THREADS * ADDS_PER_THREAD, cart.getTotalQuantity());
+    }
+}
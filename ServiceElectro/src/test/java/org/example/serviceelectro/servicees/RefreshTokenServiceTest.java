@@ -0,0 +1,92 @@
+package org.example.serviceelectro.servicees;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Réutilisation d'un refresh token : la révocation de la famille doit être validée (commit)
+ * malgré l'exception renvoyée à l'appelant.
+ */
+@SpringJUnitConfig(RefreshTokenServiceTest.Config.class)
+class RefreshTokenServiceTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+        @Bean
+        JdbcTemplate jdbcTemplate() {
+            return mock(JdbcTemplate.class);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return mock(PlatformTransactionManager.class);
+        }
+
+        @Bean
+        RefreshTokenService refreshTokenService() {
+            return new RefreshTokenService();
+        }
+    }
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(jdbcTemplate, transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reusedTokenRevokesFamilyAndCommits() throws Exception {
+        // Token déjà consommé (revoked_at renseigné)
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(1L);
+        when(row.getLong("user_id")).thenReturn(7L);
+        when(row.getString("family_id")).thenReturn("family-1");
+        when(row.getTimestamp("expires_at")).thenReturn(new Timestamp(System.currentTimeMillis() + 60_000));
+        when(row.getTimestamp("revoked_at")).thenReturn(new Timestamp(System.currentTimeMillis() - 1_000));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyString()))
+                .thenAnswer(invocation -> java.util.List.of(
+                        ((RowMapper<Object>) invocation.getArgument(1)).mapRow(row, 0)));
+
+        assertThrows(IllegalArgumentException.class, () -> refreshTokenService.rotate("stolen-token"));
+
+        verify(jdbcTemplate).update(
+                eq("UPDATE refresh_token SET revoked_at = NOW() WHERE family_id = ? AND revoked_at IS NULL"),
+                eq("family-1"));
+        verify(transactionManager).commit(any(TransactionStatus.class));
+        verify(transactionManager, never()).rollback(any(TransactionStatus.class));
+    }
+}
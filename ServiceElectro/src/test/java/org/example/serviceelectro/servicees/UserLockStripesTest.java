@@ -0,0 +1,99 @@
+package org.example.serviceelectro.servicees;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Exclusion mutuelle par utilisateur, et benchmark de contention (-Dbenchmark=true) comparant
+ * les verrous par bandes à un verrou global unique.
+ */
+class UserLockStripesTest {
+
+    @Test
+    void sameUserOperationsAreSerialized() throws Exception {
+        UserLockStripes locks = new UserLockStripes(64, 5000);
+        int[] counter = new int[1]; // Non synchronisé : seul le verrou protège l'incrément
+
+        runConcurrently(8, 10_000, thread -> locks.runLocked(42L, () -> counter[0]++));
+
+        assertEquals(8 * 10_000, counter[0]);
+    }
+
+    @Test
+    void stripeCountIsRoundedToPowerOfTwo() {
+        assertEquals(64, new UserLockStripes(64, 5000).getStripeCount());
+        assertEquals(128, new UserLockStripes(100, 5000).getStripeCount());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void contentionBenchmark() throws Exception {
+        int threads = 16;
+        int operations = 2_000;
+        UserLockStripes striped = new UserLockStripes(64, 5000);
+        ReentrantLock global = new ReentrantLock();
+
+        // Chaque opération simule une transaction courte : attente d'environ 100 µs sur la base
+        Runnable work = () -> LockSupport.parkNanos(100_000);
+
+        long stripedDistinct = runConcurrently(threads, operations,
+                thread -> striped.runLocked((long) thread, work));
+        long globalDistinct = runConcurrently(threads, operations, thread -> {
+            global.lock();
+            try {
+                work.run();
+            } finally {
+                global.unlock();
+            }
+        });
+        long stripedSameUser = runConcurrently(threads, operations,
+                thread -> striped.runLocked(1L, work));
+
+        System.out.printf("📊 %d threads x %d opérations%n", threads, operations);
+        System.out.printf("   bandes, utilisateurs distincts : %d ms%n", stripedDistinct);
+        System.out.printf("   verrou global                  : %d ms%n", globalDistinct);
+        System.out.printf("   bandes, même utilisateur       : %d ms%n", stripedSameUser);
+    }
+
+    private interface Operation {
+        void run(int thread) throws Exception;
+    }
+
+    // Durée en millisecondes pour que chaque thread exécute "operations" fois l'opération
+    private long runConcurrently(int threads, int operations, Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < operations; i++) {
+                        operation.run(thread);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (System.nanoTime() - begin) / 1_000_000;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}